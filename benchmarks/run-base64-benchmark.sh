@@ -0,0 +1,9 @@
+# Runs Base64 encode and decode benchmark (run from repository root after compile-lib.sh)
+#
+# Requires jmh-core, jmh-generator-annprocess (and their dependencies) in lib/
+#
+# Usage: sh benchmarks/run-base64-benchmark.sh [jmh options, e.g, -prof gc]
+CP="bin:bin/Residue.jar:lib/*"
+mkdir -p bin/benchmarks
+javac -d bin/benchmarks -cp "$CP" benchmarks/src/com/abumq/residue/benchmarks/Base64Benchmark.java || exit 1
+java -cp "bin/benchmarks:$CP" org.openjdk.jmh.Main Base64Benchmark "$@"
@@ -0,0 +1,9 @@
+# Runs cached crypto context vs per-request cipher benchmark (run from repository root after compile-lib.sh)
+#
+# Requires jmh-core, jmh-generator-annprocess (and their dependencies) in lib/
+#
+# Usage: sh benchmarks/run-cipher-benchmark.sh [jmh options, e.g, -prof gc]
+CP="bin:bin/Residue.jar:lib/*"
+mkdir -p bin/benchmarks
+javac -d bin/benchmarks -cp "$CP" benchmarks/src/com/abumq/residue/benchmarks/CipherBenchmark.java || exit 1
+java -cp "bin/benchmarks:$CP" org.openjdk.jmh.Main CipherBenchmark "$@"
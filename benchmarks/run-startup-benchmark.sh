@@ -0,0 +1,15 @@
+# Runs startup benchmark in a fresh JVM for each run (run from repository root after compile-lib.sh)
+#
+# Usage: sh benchmarks/run-startup-benchmark.sh [runs] [client_config.json]
+RUNS=$1
+if [ "$RUNS" == "" ];then
+	RUNS=10
+fi
+CONFIG=$2
+CP="bin:bin/Residue.jar:lib/*"
+javac -d bin -cp "$CP" benchmarks/src/com/abumq/residue/benchmarks/StartupBenchmark.java || exit 1
+for i in $(seq 1 $RUNS); do
+	java -cp "$CP" com.abumq.residue.benchmarks.StartupBenchmark $CONFIG
+done
+# classes loaded by the JVM in one run
+java -verbose:class -cp "$CP" com.abumq.residue.benchmarks.StartupBenchmark $CONFIG | grep -c "class,load"
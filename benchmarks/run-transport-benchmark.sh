@@ -0,0 +1,9 @@
+# Runs loopback TCP vs unix domain socket benchmark (run from repository root after compile-lib.sh)
+#
+# Requires jmh-core, jmh-generator-annprocess (and their dependencies) in lib/ and JDK 16+
+#
+# Usage: sh benchmarks/run-transport-benchmark.sh [jmh options, e.g, -prof gc]
+CP="bin:bin/Residue.jar:lib/*"
+mkdir -p bin/benchmarks
+javac -d bin/benchmarks -cp "$CP" benchmarks/src/com/abumq/residue/benchmarks/TransportBenchmark.java || exit 1
+java -cp "bin/benchmarks:$CP" org.openjdk.jmh.Main TransportBenchmark "$@"
@@ -0,0 +1,134 @@
+/**
+ * Base64Benchmark.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.benchmarks;
+
+import com.abumq.residue.Base64;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding in to caller supplied arrays and (direct) buffers against
+ * {@link Base64#encode(byte[], int)} / {@link Base64#decode(byte[], int)}, which allocate result for
+ * each call and is how log requests were encoded before, and against <code>java.util.Base64</code>.
+ * <p>
+ * With <code>wrap</code> data is encoded with CRLF line breaks every 76 characters and JDK's MIME encoder
+ * is used, otherwise data is encoded using <code>NO_WRAP</code> and JDK's basic encoder. Output only
+ * differs in JDK leaving out the final line break.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class Base64Benchmark {
+
+    @Param({"256", "4096"})
+    public int dataSize;
+
+    @Param({"true", "false"})
+    public boolean wrap;
+
+    private int flags;
+    private byte[] data;
+    private byte[] encoded;
+    private byte[] output;
+    private ByteBuffer dataBuffer;
+    private ByteBuffer encodedBuffer;
+    private ByteBuffer outputBuffer;
+
+    private java.util.Base64.Encoder jdkEncoder;
+    private java.util.Base64.Decoder jdkDecoder;
+
+    @Setup
+    public void setup() {
+        flags = wrap ? Base64.CRLF : Base64.NO_WRAP;
+        data = new byte[dataSize];
+        new Random(42).nextBytes(data);
+        encoded = Base64.encode(data, flags);
+        output = new byte[Math.max(encoded.length, Base64.decodedMaxLength(encoded.length))];
+
+        dataBuffer = ByteBuffer.allocateDirect(data.length);
+        dataBuffer.put(data).flip();
+        encodedBuffer = ByteBuffer.allocateDirect(encoded.length);
+        encodedBuffer.put(encoded).flip();
+        outputBuffer = ByteBuffer.allocateDirect(output.length);
+
+        jdkEncoder = wrap ? java.util.Base64.getMimeEncoder() : java.util.Base64.getEncoder();
+        jdkDecoder = wrap ? java.util.Base64.getMimeDecoder() : java.util.Base64.getDecoder();
+    }
+
+    @Benchmark
+    public byte[] allocatingEncode() {
+        return Base64.encode(data, flags);
+    }
+
+    @Benchmark
+    public int arrayEncode() {
+        return Base64.encode(data, 0, data.length, output, 0, flags);
+    }
+
+    @Benchmark
+    public int bufferEncode() {
+        dataBuffer.rewind();
+        outputBuffer.clear();
+        return Base64.encode(dataBuffer, outputBuffer, flags);
+    }
+
+    @Benchmark
+    public int jdkEncode() {
+        return jdkEncoder.encode(data, output);
+    }
+
+    @Benchmark
+    public byte[] allocatingDecode() {
+        return Base64.decode(encoded, flags);
+    }
+
+    @Benchmark
+    public int arrayDecode() {
+        return Base64.decode(encoded, 0, encoded.length, output, 0, flags);
+    }
+
+    @Benchmark
+    public int bufferDecode() {
+        encodedBuffer.rewind();
+        outputBuffer.clear();
+        return Base64.decode(encodedBuffer, outputBuffer, flags);
+    }
+
+    @Benchmark
+    public int jdkDecode() {
+        return jdkDecoder.decode(encoded, output);
+    }
+}
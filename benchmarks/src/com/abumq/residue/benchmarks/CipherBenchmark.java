@@ -0,0 +1,160 @@
+/**
+ * CipherBenchmark.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.benchmarks;
+
+import com.abumq.residue.Base64;
+import com.abumq.residue.Residue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Compares AES encryption of log requests using cached crypto context (decoded key per session key,
+ * cipher per thread, shared <code>SecureRandom</code> for IVs and caller provided output buffer) against
+ * creating cipher, key and <code>Random</code> for each request, which is how requests were encrypted
+ * before. <code>legacy*</code> benchmarks are copies of that code.
+ * <p>
+ * Crypto context is internal to {@link Residue} so it is called using method handles (resolved once).
+ * <code>*Frame</code> benchmarks include hex IV, client ID and base64, i.e, the whole request string.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CipherBenchmark {
+
+    private static final String KEY = "E3B0C44298FC1C149AFBF4C8996FB924";
+    private static final String CLIENT_ID = "benchmark-client";
+
+    @Param({"256", "2048"})
+    public int requestSize;
+
+    private String request;
+    private byte[] input;
+    private byte[] iv;
+    private byte[] output;
+
+    private MethodHandle nextIv;
+    private MethodHandle forKey;
+    private MethodHandle encrypt;
+    private MethodHandle encryptFor;
+
+    @Setup
+    public void setup() throws Throwable {
+        final StringBuilder sb = new StringBuilder("{\"datetime\":1500000000000,\"logger\":\"default\",\"msg\":\"");
+        final Random random = new Random(42);
+        while (sb.length() < requestSize - 2) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        request = sb.append("\"}").toString();
+        input = request.getBytes(StandardCharsets.UTF_8);
+        iv = new byte[16];
+        output = new byte[(input.length / 16 + 1) * 16];
+
+        final Class<?> context = Class.forName("com.abumq.residue.Residue$CryptoContext");
+        final Class<?> utils = Class.forName("com.abumq.residue.Residue$ResidueUtils");
+        nextIv = handle(context, "nextIv", byte[].class);
+        forKey = handle(context, "forKey", String.class);
+        encrypt = handle(context, "encrypt", byte[].class, byte[].class, int.class, int.class, byte[].class, int.class);
+        encryptFor = handle(utils, "encryptFor", String.class, String.class, String.class);
+
+        // both produce valid ciphertext of same size
+        if (legacyEncrypt().length != contextEncrypt()) {
+            throw new IllegalStateException("Unexpected ciphertext size");
+        }
+    }
+
+    private static MethodHandle handle(Class<?> c, String name, Class<?>... parameterTypes) throws Exception {
+        final Method m = c.getDeclaredMethod(name, parameterTypes);
+        m.setAccessible(true);
+        return MethodHandles.lookup().unreflect(m);
+    }
+
+    @Benchmark
+    public byte[] legacyEncrypt() throws Exception {
+        final byte[] initVector = new byte[16];
+        new Random().nextBytes(initVector);
+        final SecretKeySpec keySpec = new SecretKeySpec(hexDecode(KEY), "AES");
+        final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5PADDING");
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(initVector));
+        return cipher.doFinal(input);
+    }
+
+    @Benchmark
+    public int contextEncrypt() throws Throwable {
+        nextIv.invoke(iv);
+        return (int) encrypt.invoke(forKey.invoke(KEY), iv, input, 0, input.length, output, 0);
+    }
+
+    @Benchmark
+    public String legacyFrame() throws Exception {
+        final byte[] initVector = new byte[16];
+        new Random().nextBytes(initVector);
+        final SecretKeySpec keySpec = new SecretKeySpec(hexDecode(KEY), "AES");
+        final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5PADDING");
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(initVector));
+        final byte[] encrypted = cipher.doFinal(request.getBytes());
+        return hexEncode(initVector) + ":" + CLIENT_ID + ":" + Base64.encodeToString(encrypted, Base64.DEFAULT);
+    }
+
+    @Benchmark
+    public String contextFrame() throws Throwable {
+        return (String) encryptFor.invoke(request, KEY, CLIENT_ID);
+    }
+
+    private static byte[] hexDecode(String hex) {
+        final byte[] b = new byte[hex.length() / 2];
+        for (int i = 0; i < b.length; ++i) {
+            b[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return b;
+    }
+
+    private static String hexEncode(byte[] bytes) {
+        final char[] digits = "0123456789ABCDEF".toCharArray();
+        final char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            out[i * 2] = digits[(bytes[i] & 0xF0) >>> 4];
+            out[i * 2 + 1] = digits[bytes[i] & 0x0F];
+        }
+        return new String(out);
+    }
+}
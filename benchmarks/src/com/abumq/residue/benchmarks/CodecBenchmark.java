@@ -0,0 +1,112 @@
+/**
+ * CodecBenchmark.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.benchmarks;
+
+import com.abumq.residue.Residue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compares {@link Residue.Lz4Codec} against zlib (reusable <code>Deflater</code>, as dispatcher uses it)
+ * on bulk log requests of <code>bulkSize</code> log messages. Compression ratio of each is printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"1", "40"})
+    public int bulkSize;
+
+    @Param({"-1", "1"}) // default and best speed
+    public int zlibLevel;
+
+    private byte[] request;
+    private Residue.Lz4Codec lz4;
+    private Deflater deflater;
+    private byte[] zlibBuffer;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(42);
+        final StringBuilder sb = new StringBuilder(bulkSize > 1 ? "[" : "");
+        for (int i = 0; i < bulkSize; ++i) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"datetime\":").append(1500000000000L + random.nextInt(1000))
+                    .append(",\"logger\":\"default\",\"msg\":\"Served request ").append(random.nextInt(1000000))
+                    .append(" for user ").append(random.nextInt(5000)).append(" in ").append(random.nextInt(300))
+                    .append("ms\",\"file\":\"RequestHandler.java\",\"line\":").append(100 + random.nextInt(50))
+                    .append(",\"func\":\"handle\",\"app\":\"sample-app\",\"thread\":\"worker-")
+                    .append(random.nextInt(8)).append("\",\"level\":4}");
+        }
+        if (bulkSize > 1) {
+            sb.append(']');
+        }
+        request = sb.toString().getBytes(StandardCharsets.UTF_8);
+        lz4 = new Residue.Lz4Codec();
+        deflater = new Deflater(zlibLevel);
+        zlibBuffer = new byte[request.length + 1024];
+        System.out.println("\nRequest: " + request.length + " bytes, lz4: " + lz4().length + " bytes, zlib: "
+                + zlib() + " bytes");
+    }
+
+    @TearDown
+    public void tearDown() {
+        deflater.end();
+    }
+
+    @Benchmark
+    public byte[] lz4() throws IOException {
+        return lz4.compress(request, 0, request.length);
+    }
+
+    @Benchmark
+    public int zlib() {
+        deflater.reset();
+        deflater.setInput(request, 0, request.length);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(zlibBuffer, length, zlibBuffer.length - length);
+        }
+        return length;
+    }
+}
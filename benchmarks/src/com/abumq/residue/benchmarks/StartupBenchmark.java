@@ -0,0 +1,63 @@
+/**
+ * StartupBenchmark.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.benchmarks;
+
+import com.abumq.residue.Residue;
+
+/**
+ * Measures cold start, i.e, time from start of <code>main</code> to first log being queued and (if
+ * configuration is provided) to it being sent to the server.
+ * <p>
+ * Each run should be a fresh JVM, see <code>run-startup-benchmark.sh</code>
+ *
+ * Usage: <code>StartupBenchmark [client_config.json]</code>
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final long start = System.nanoTime();
+
+        Residue r = Residue.getInstance();
+        r.getLogger().info("first log");
+        final long enqueued = System.nanoTime();
+
+        System.out.println("first_enqueued_ms=" + millis(start, enqueued));
+
+        if (args.length > 0) {
+            r.loadConfigurations(args[0]);
+            if (!r.open()) {
+                System.out.println("Unable to connect: " + r.getLastError());
+                System.exit(1);
+            }
+            final long connected = System.nanoTime();
+            if (!r.flush(10000)) {
+                System.out.println("Timed out waiting for first log to be sent");
+                System.exit(1);
+            }
+            final long sent = System.nanoTime();
+            System.out.println("connected_ms=" + millis(start, connected));
+            System.out.println("first_sent_ms=" + millis(start, sent));
+        }
+        System.exit(0);
+    }
+
+    private static String millis(long from, long to) {
+        return String.format("%.2f", (to - from) / 1e6);
+    }
+}
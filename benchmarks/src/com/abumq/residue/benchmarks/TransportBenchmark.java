@@ -0,0 +1,204 @@
+/**
+ * TransportBenchmark.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loopback TCP against unix domain socket for sending log request frames of
+ * <code>frameSize</code> bytes to a co-located server (in-process, one thread per connection).
+ * <p>
+ * Clients are the same channels residue client uses, i.e, asynchronous socket channel for TCP and
+ * blocking socket channel for unix domain socket. With <code>ack</code> each frame waits for server's
+ * response (as log requests do unless fire-and-forget), otherwise frames are only written.
+ * <p>
+ * Requires JDK 16+ (unix domain sockets)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransportBenchmark {
+
+    private static final byte[] DELIMITER = "\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ACK = ("F1E2D3C4B5A697887766554433221100:5G9b1Hf8qXk2VwYzJm0Lr3N4pQ==")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"tcp", "unix"})
+    public String transport;
+
+    @Param({"256", "2048"})
+    public int frameSize;
+
+    @Param({"true", "false"})
+    public boolean ack;
+
+    private ServerSocketChannel server;
+    private Thread serverThread;
+    private Path socketDir;
+
+    private AsynchronousSocketChannel tcpClient;
+    private SocketChannel unixClient;
+
+    private ByteBuffer frame;
+    private ByteBuffer response;
+
+    @Setup
+    public void setup() throws Exception {
+        final boolean unix = "unix".equals(transport);
+        if (unix) {
+            socketDir = Files.createTempDirectory("residue-benchmark");
+            final UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socketDir.resolve("residue.sock"));
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(address);
+            serverThread = serve(server);
+            unixClient = SocketChannel.open(address);
+        } else {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            serverThread = serve(server);
+            tcpClient = AsynchronousSocketChannel.open();
+            tcpClient.connect(server.getLocalAddress()).get();
+        }
+
+        // <iv>:<client_id>:<base64 payload>\r\n\r\n
+        final Random random = new Random(42);
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        final StringBuilder sb = new StringBuilder("F1E2D3C4B5A697887766554433221100:benchmark-client:");
+        while (sb.length() < frameSize - DELIMITER.length) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        frame = ByteBuffer.allocateDirect(bytes.length + DELIMITER.length);
+        frame.put(bytes).put(DELIMITER).flip();
+        response = ByteBuffer.allocateDirect(ACK.length + DELIMITER.length);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (tcpClient != null) {
+            tcpClient.close();
+        }
+        if (unixClient != null) {
+            unixClient.close();
+        }
+        server.close();
+        serverThread.join(5000);
+        if (socketDir != null) {
+            Files.deleteIfExists(socketDir.resolve("residue.sock"));
+            Files.deleteIfExists(socketDir);
+        }
+    }
+
+    @Benchmark
+    public int send() throws Exception {
+        frame.rewind();
+        if (unixClient != null) {
+            while (frame.hasRemaining()) {
+                unixClient.write(frame);
+            }
+        } else {
+            while (frame.hasRemaining()) {
+                tcpClient.write(frame).get();
+            }
+        }
+        if (!ack) {
+            return frame.position();
+        }
+        response.clear();
+        while (response.hasRemaining()) {
+            final int n = unixClient != null ? unixClient.read(response) : tcpClient.read(response).get();
+            if (n < 0) {
+                throw new IOException("Server closed connection");
+            }
+        }
+        return response.position();
+    }
+
+    /**
+     * Accepts one connection and reads frames from it, responding to each frame when <code>ack</code> is set
+     */
+    private Thread serve(final ServerSocketChannel server) {
+        final boolean respond = ack;
+        final Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final ByteBuffer in = ByteBuffer.allocateDirect(65536);
+                final ByteBuffer out = ByteBuffer.allocateDirect(ACK.length + DELIMITER.length);
+                out.put(ACK).put(DELIMITER).flip();
+                try (SocketChannel channel = server.accept()) {
+                    int matched = 0; // delimiter bytes matched so far, frames may span reads
+                    while (channel.read(in) >= 0) {
+                        in.flip();
+                        while (in.hasRemaining()) {
+                            final byte b = in.get();
+                            if (b == DELIMITER[matched]) {
+                                if (++matched == DELIMITER.length) {
+                                    matched = 0;
+                                    if (respond) {
+                                        out.rewind();
+                                        while (out.hasRemaining()) {
+                                            channel.write(out);
+                                        }
+                                    }
+                                }
+                            } else {
+                                matched = b == DELIMITER[0] ? 1 : 0;
+                            }
+                        }
+                        in.clear();
+                    }
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        }, "transport-benchmark-server");
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+}
@@ -1,2 +1,4 @@
 javac -cp "./lib/*" -d bin/ src/com/abumq/residue/Residue.java src/com/abumq/residue/Base64.java
+# JDK Flight Recorder events (optional, requires JDK 11+), residue works without them
+javac -cp "bin:./lib/*" -d bin/ src/com/abumq/residue/ResidueFlightRecorder.java || echo "Skipping flight recorder events"
 jar cvf bin/Residue.jar bin/com*
@@ -0,0 +1,18 @@
+# Runs Log4j2 async logger benchmark, residue appender vs RandomAccessFile appender
+# (run from repository root after log4j2/compile.sh)
+#
+# Requires jmh-core, jmh-generator-annprocess (and their dependencies) and lmax disruptor jars in lib/
+#
+# Usage: sh log4j2/benchmarks/run-benchmark.sh <client_config.json> [jmh options, e.g, -prof gc]
+CONFIG=$1
+if [ "$CONFIG" == "" ];then
+	echo "Usage: sh log4j2/benchmarks/run-benchmark.sh <client_config.json> [jmh options]"
+	exit 1
+fi
+shift
+CP="bin/log4j2:bin:lib/*"
+mkdir -p bin/log4j2-benchmarks
+javac -d bin/log4j2-benchmarks -cp "$CP" log4j2/benchmarks/src/com/abumq/residue/log4j2/benchmarks/*.java || exit 1
+java -cp "bin/log4j2-benchmarks:$CP" org.openjdk.jmh.Main Log4j2AppenderBenchmark \
+	-jvmArgsAppend "-Dlog4j2.contextSelector=org.apache.logging.log4j.core.async.AsyncLoggerContextSelector -Dlog4j2.configurationFile=log4j2/benchmarks/log4j2-benchmark.xml -Dresidue.config=$CONFIG" \
+	"$@"
@@ -0,0 +1,101 @@
+/**
+ * Log4j2AppenderBenchmark.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.log4j2.benchmarks;
+
+import com.abumq.residue.log4j2.ResidueAppender;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.util.Unbox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log4j2 async loggers (<code>AsyncLoggerContextSelector</code>) writing to {@link ResidueAppender}
+ * compared with same loggers writing to <code>RandomAccessFile</code> appender, Log4j2's own
+ * garbage-free baseline. See <code>log4j2-benchmark.xml</code> and <code>run-benchmark.sh</code>, which
+ * passes context selector and configuration to forked JVM.
+ * <p>
+ * Use with <code>-prof gc</code> to compare allocations per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class Log4j2AppenderBenchmark {
+
+    private Logger residueLogger;
+    private Logger fileLogger;
+    private ResidueAppender appender;
+
+    private final long userId = 42L;
+    private final String host = "10.0.0.1";
+
+    @Setup
+    public void setup() {
+        residueLogger = LogManager.getLogger("residue");
+        fileLogger = LogManager.getLogger("file");
+        final LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        appender = context.getConfiguration().getAppender("residue");
+        if (appender == null) {
+            throw new IllegalStateException("Residue appender is not configured, see run-benchmark.sh");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws Exception {
+        // don't let backlog of one iteration slow down the next
+        appender.getResidue().flush(60000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        LogManager.shutdown();
+    }
+
+    @Benchmark
+    public void asyncResidue() {
+        residueLogger.info("user {} logged in from {}", Unbox.box(userId), host);
+    }
+
+    @Benchmark
+    public void asyncFile() {
+        fileLogger.info("user {} logged in from {}", Unbox.box(userId), host);
+    }
+
+    @Benchmark
+    public void asyncResidueDisabled() {
+        residueLogger.debug("user {} logged in from {}", Unbox.box(userId), host);
+    }
+}
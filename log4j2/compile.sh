@@ -0,0 +1,7 @@
+# Builds bin/residue-log4j2.jar (run from repository root after compile-lib.sh)
+#
+# Requires log4j-api and log4j-core 2.x jars in lib/, log4j-core's annotation processor
+# writes plugin cache (Log4j2Plugins.dat) so Residue appender is found without packages attribute
+mkdir -p bin/log4j2
+javac -cp "bin:./lib/*" -d bin/log4j2/ log4j2/src/com/abumq/residue/log4j2/*.java || exit 1
+jar cvf bin/residue-log4j2.jar -C bin/log4j2 .
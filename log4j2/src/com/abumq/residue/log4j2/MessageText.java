@@ -0,0 +1,97 @@
+/**
+ * MessageText.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.log4j2;
+
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Log4j2 message that is formatted (in to reusable buffer) the first time it is read, i.e, while
+ * residue is encoding the event after level and rate limits are checked.
+ * <p>
+ * Messages that are {@link StringBuilderFormattable} (parameterized, reusable and ring buffer events
+ * of async loggers) are written straight in to the buffer without creating a string. Not thread-safe,
+ * one per thread
+ */
+class MessageText implements CharSequence {
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private StringBuilder text = new StringBuilder(256);
+    private boolean formatted;
+    private Message message;
+    private Throwable thrown;
+
+    MessageText set(Message message, Throwable thrown) {
+        this.message = message;
+        this.thrown = thrown;
+        formatted = false;
+        return this;
+    }
+
+    /**
+     * Drops references to message (and oversized buffer) once event is logged
+     */
+    void clear() {
+        set(null, null);
+        if (text.capacity() > MAX_RETAINED_CAPACITY) {
+            text = new StringBuilder(256);
+        }
+    }
+
+    @Override
+    public int length() {
+        return text().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return text().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text().toString();
+    }
+
+    private StringBuilder text() {
+        if (!formatted) {
+            text.setLength(0);
+            if (message instanceof StringBuilderFormattable) {
+                ((StringBuilderFormattable) message).formatTo(text);
+            } else if (message != null) {
+                text.append(message.getFormattedMessage());
+            }
+            if (thrown != null) {
+                StringWriter trace = new StringWriter();
+                thrown.printStackTrace(new PrintWriter(trace));
+                text.append('\n').append(trace);
+            }
+            formatted = true;
+        }
+        return text;
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * ResidueAppender.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.log4j2;
+
+import com.abumq.residue.Residue;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import org.apache.logging.log4j.core.impl.LocationAware;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log4j2 appender that sends events to residue using {@link Residue#log(Residue.Event)}.
+ * <p>
+ * Garbage-free when used with Log4j2's garbage-free (or async) loggers: each thread reuses its
+ * event and message buffer, and message is formatted straight in to the buffer only once residue
+ * accepts the event. The only allocation is the encoded request residue keeps in its backlog.
+ * <p>
+ * Source file, line and method are sent only with <code>includeLocation="true"</code>, this also
+ * tells Log4j2 to capture location (stack walk) for this appender's loggers.
+ * <pre>
+ * &lt;Residue name="residue" configurationFile="client.conf.json" includeLocation="false" shutdownTimeout="5000"/&gt;
+ * </pre>
+ * Without <code>configurationFile</code> default instance ({@link Residue#getInstance()}) is used and
+ * you connect it yourself.
+ * <p>
+ * Level map:
+ *
+ * FATAL => FATAL
+ * ERROR => ERROR
+ * WARN => WARNING
+ * INFO => INFO
+ * DEBUG => DEBUG
+ * TRACE => TRACE
+ *
+ * Custom levels map to nearest standard level that is not less specific
+ */
+@Plugin(name = "Residue", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE, printObject = true)
+public class ResidueAppender extends AbstractAppender implements LocationAware {
+
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 5000L;
+
+    private static final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
+    private final Residue residue;
+    private final boolean ownsResidue;
+    private final boolean includeLocation;
+    private final long shutdownTimeout;
+
+    /**
+     * Reusable event of a thread
+     */
+    private static class ThreadState {
+        private final Residue.Event event = new Residue.Event();
+        private final MessageText message = new MessageText();
+        private boolean busy; // e.g, message parameter's toString() logs while event is being encoded
+    }
+
+    public static class Builder<B extends Builder<B>> extends AbstractAppender.Builder<B>
+            implements org.apache.logging.log4j.core.util.Builder<ResidueAppender> {
+
+        @PluginBuilderAttribute
+        private String configurationFile;
+
+        @PluginBuilderAttribute
+        private boolean includeLocation;
+
+        @PluginBuilderAttribute
+        private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+
+        /**
+         * @param configurationFile Client configuration for a new residue instance owned (connected
+         *                          and closed) by this appender
+         */
+        public B setConfigurationFile(final String configurationFile) {
+            this.configurationFile = configurationFile;
+            return asBuilder();
+        }
+
+        public B setIncludeLocation(final boolean includeLocation) {
+            this.includeLocation = includeLocation;
+            return asBuilder();
+        }
+
+        /**
+         * @param shutdownTimeout Milliseconds to wait for queued events to be sent when appender owns the
+         *                        residue instance and is stopped
+         */
+        public B setShutdownTimeout(final long shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+            return asBuilder();
+        }
+
+        @Override
+        public ResidueAppender build() {
+            Residue residue = Residue.getInstance();
+            boolean ownsResidue = false;
+            if (configurationFile != null && !configurationFile.isEmpty()) {
+                residue = new Residue();
+                try {
+                    residue.loadConfigurations(configurationFile);
+                } catch (Exception e) {
+                    LOGGER.error("Unable to load residue configuration [{}]", configurationFile, e);
+                    return null;
+                }
+                ownsResidue = true;
+            }
+            return new ResidueAppender(getName(), getFilter(), isIgnoreExceptions(), getPropertyArray(),
+                    residue, ownsResidue, includeLocation, shutdownTimeout);
+        }
+    }
+
+    @PluginBuilderFactory
+    public static <B extends Builder<B>> B newBuilder() {
+        return new Builder<B>().asBuilder();
+    }
+
+    /**
+     * Appender for given (already configured) instance
+     */
+    public ResidueAppender(final String name, final Filter filter, final Residue residue, final boolean includeLocation) {
+        this(name, filter, true, Property.EMPTY_ARRAY, residue, false, includeLocation, DEFAULT_SHUTDOWN_TIMEOUT);
+    }
+
+    private ResidueAppender(final String name, final Filter filter, final boolean ignoreExceptions,
+                            final Property[] properties, final Residue residue, final boolean ownsResidue,
+                            final boolean includeLocation, final long shutdownTimeout) {
+        super(name, filter, null, ignoreExceptions, properties);
+        this.residue = residue;
+        this.ownsResidue = ownsResidue;
+        this.includeLocation = includeLocation;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public Residue getResidue() {
+        return residue;
+    }
+
+    @Override
+    public boolean requiresLocation() {
+        return includeLocation;
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        if (ownsResidue) {
+            // connect in background, events are queued until connected
+            final Thread connect = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!residue.open()) {
+                            LOGGER.error("Unable to connect to residue server: {}", residue.getLastError());
+                        }
+                    } catch (Exception e) {
+                        LOGGER.error("Unable to connect to residue server", e);
+                    }
+                }
+            }, "residue-log4j2-connect");
+            connect.setDaemon(true);
+            connect.start();
+        }
+    }
+
+    @Override
+    public boolean stop(final long timeout, final TimeUnit timeUnit) {
+        setStopping();
+        final boolean stopped = super.stop(timeout, timeUnit, false);
+        if (ownsResidue) {
+            try {
+                residue.flush(shutdownTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            residue.close();
+        }
+        setStopped();
+        return stopped;
+    }
+
+    @Override
+    public void append(final LogEvent e) {
+        ThreadState state = threadState.get();
+        if (state.busy) {
+            state = new ThreadState();
+        }
+        state.busy = true;
+        try {
+            final Residue.Event event = state.event.reset()
+                    .setDatetime(residue.getTime(e.getTimeMillis()))
+                    .setLoggerId(e.getLoggerName())
+                    .setMessage(state.message.set(e.getMessage(), e.getThrown()))
+                    .setLevel(toResidueLevel(e.getLevel().intLevel()))
+                    .setThreadName(e.getThreadName());
+            if (includeLocation) {
+                final StackTraceElement source = e.getSource();
+                if (source != null) {
+                    event.setSourceFilename(source.getFileName())
+                            .setSourceLineNumber(source.getLineNumber())
+                            .setSourceMethodName(source.getMethodName());
+                }
+            }
+            residue.log(event);
+        } finally {
+            state.message.clear();
+            state.busy = false;
+        }
+    }
+
+    /**
+     * @param intLevel Log4j2 level, lower is more severe (FATAL = 100, TRACE = 600)
+     */
+    private static Residue.LoggingLevels toResidueLevel(int intLevel) {
+        if (intLevel <= 100) {
+            return Residue.LoggingLevels.FATAL;
+        } else if (intLevel <= 200) {
+            return Residue.LoggingLevels.ERROR;
+        } else if (intLevel <= 300) {
+            return Residue.LoggingLevels.WARNING;
+        } else if (intLevel <= 400) {
+            return Residue.LoggingLevels.INFO;
+        } else if (intLevel <= 500) {
+            return Residue.LoggingLevels.DEBUG;
+        }
+        return Residue.LoggingLevels.TRACE;
+    }
+}
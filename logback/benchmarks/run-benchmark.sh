@@ -0,0 +1,18 @@
+# Runs Logback benchmark, residue appender vs AsyncAppender + FileAppender
+# (run from repository root after logback/compile.sh)
+#
+# Requires jmh-core, jmh-generator-annprocess (and their dependencies) jars in lib/
+#
+# Usage: sh logback/benchmarks/run-benchmark.sh <client_config.json> [jmh options, e.g, -t 8 -prof gc]
+CONFIG=$1
+if [ "$CONFIG" == "" ];then
+	echo "Usage: sh logback/benchmarks/run-benchmark.sh <client_config.json> [jmh options]"
+	exit 1
+fi
+shift
+CP="bin/logback:bin:lib/*"
+mkdir -p bin/logback-benchmarks
+javac -d bin/logback-benchmarks -cp "$CP" logback/benchmarks/src/com/abumq/residue/logback/benchmarks/*.java || exit 1
+java -cp "bin/logback-benchmarks:$CP" org.openjdk.jmh.Main LogbackAppenderBenchmark \
+	-jvmArgsAppend "-Dlogback.configurationFile=logback/benchmarks/logback-benchmark.xml -Dresidue.config=$CONFIG" \
+	"$@"
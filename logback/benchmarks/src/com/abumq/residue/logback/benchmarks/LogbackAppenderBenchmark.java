@@ -0,0 +1,111 @@
+/**
+ * LogbackAppenderBenchmark.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.logback.benchmarks;
+
+import com.abumq.residue.logback.ResidueAppender;
+
+import ch.qos.logback.classic.LoggerContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link ResidueAppender} (each event handed over straight away, and in batches of 64)
+ * compared with Logback's <code>AsyncAppender</code> in front of <code>FileAppender</code>, from
+ * several logging threads. See <code>logback-benchmark.xml</code> and <code>run-benchmark.sh</code>,
+ * which passes configuration to forked JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class LogbackAppenderBenchmark {
+
+    private Logger residueLogger;
+    private Logger batchedLogger;
+    private Logger asyncFileLogger;
+    private ResidueAppender residue;
+    private ResidueAppender batched;
+
+    private final long userId = 42L;
+    private final String host = "10.0.0.1";
+
+    @Setup
+    public void setup() {
+        residueLogger = LoggerFactory.getLogger("residue");
+        batchedLogger = LoggerFactory.getLogger("residueBatched");
+        asyncFileLogger = LoggerFactory.getLogger("asyncFile");
+        residue = appender("residue");
+        batched = appender("residueBatched");
+    }
+
+    private static ResidueAppender appender(String name) {
+        final ResidueAppender appender = (ResidueAppender)
+                ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(name)).getAppender(name);
+        if (appender == null) {
+            throw new IllegalStateException("Appender [" + name + "] is not configured, see run-benchmark.sh");
+        }
+        return appender;
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws Exception {
+        // don't let backlog of one iteration slow down the next
+        residue.getResidue().flush(60000);
+        batched.getResidue().flush(60000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    @Benchmark
+    public void residue() {
+        residueLogger.info("user {} logged in from {}", userId, host);
+    }
+
+    @Benchmark
+    public void residueBatched() {
+        batchedLogger.info("user {} logged in from {}", userId, host);
+    }
+
+    @Benchmark
+    public void asyncFile() {
+        asyncFileLogger.info("user {} logged in from {}", userId, host);
+    }
+}
@@ -0,0 +1,6 @@
+# Builds bin/residue-logback.jar (run from repository root after compile-lib.sh)
+#
+# Requires logback-classic, logback-core (1.3+) and slf4j-api jars in lib/
+mkdir -p bin/logback
+javac -cp "bin:./lib/*" -d bin/logback/ logback/src/com/abumq/residue/logback/*.java || exit 1
+jar cvf bin/residue-logback.jar -C bin/logback .
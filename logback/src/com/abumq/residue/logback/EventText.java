@@ -0,0 +1,112 @@
+/**
+ * EventText.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.logback;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+
+import org.slf4j.event.KeyValuePair;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Message of a Logback event that is written (in to reusable buffer) the first time it is read, i.e,
+ * while residue is encoding the event after level and rate limits are checked.
+ * <p>
+ * MDC and key value pairs are prepended as <code>key=value</code>, followed by formatted message and
+ * stack trace of throwable (if any). When there is nothing to add, event's formatted message is read
+ * as-is without copying. Not thread-safe
+ */
+class EventText implements CharSequence {
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private StringBuilder text = new StringBuilder(256);
+    private CharSequence value;
+    private ILoggingEvent event;
+    private boolean includeMdc;
+
+    EventText set(ILoggingEvent event, boolean includeMdc) {
+        this.event = event;
+        this.includeMdc = includeMdc;
+        value = null;
+        return this;
+    }
+
+    /**
+     * Drops reference to event (and oversized buffer) once it is logged
+     */
+    void clear() {
+        set(null, false);
+        if (text.capacity() > MAX_RETAINED_CAPACITY) {
+            text = new StringBuilder(256);
+        }
+    }
+
+    @Override
+    public int length() {
+        return value().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return value().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return value().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return value().toString();
+    }
+
+    private CharSequence value() {
+        if (value == null) {
+            final Map<String, String> mdc = includeMdc ? event.getMDCPropertyMap() : null;
+            final List<KeyValuePair> keyValuePairs = event.getKeyValuePairs();
+            final IThrowableProxy thrown = event.getThrowableProxy();
+            final String message = event.getFormattedMessage();
+            if ((mdc == null || mdc.isEmpty()) && (keyValuePairs == null || keyValuePairs.isEmpty()) && thrown == null) {
+                value = message == null ? "null" : message;
+                return value;
+            }
+            text.setLength(0);
+            if (mdc != null) {
+                for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                    text.append(entry.getKey()).append('=').append(entry.getValue()).append(' ');
+                }
+            }
+            if (keyValuePairs != null) {
+                for (KeyValuePair kv : keyValuePairs) {
+                    text.append(kv.key).append('=').append(kv.value).append(' ');
+                }
+            }
+            text.append(message);
+            if (thrown != null) {
+                text.append('\n').append(ThrowableProxyUtil.asString(thrown));
+            }
+            value = text;
+        }
+        return value;
+    }
+}
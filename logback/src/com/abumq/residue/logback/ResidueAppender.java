@@ -0,0 +1,356 @@
+/**
+ * ResidueAppender.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.logback;
+
+import com.abumq.residue.Residue;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Logback appender that sends events to residue using {@link Residue#log(Residue.Event)}.
+ * <pre>
+ * &lt;appender name="residue" class="com.abumq.residue.logback.ResidueAppender"&gt;
+ *     &lt;configurationFile&gt;client.conf.json&lt;/configurationFile&gt;
+ *     &lt;batchSize&gt;64&lt;/batchSize&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ * Without <code>configurationFile</code> default instance ({@link Residue#getInstance()}) is used and
+ * you connect it yourself.
+ * <p>
+ * With <code>batchSize</code> greater than 1 each logging thread collects events and hands them over
+ * to residue's backlog in one go (see {@link Residue#log(Residue.Event[], int, int)}) when batch is
+ * full or <code>batchDelay</code> milliseconds have passed, instead of contending on backlog for each
+ * event. Message, thread name, MDC and caller data are captured on logging thread, like
+ * <code>AsyncAppender</code> does.
+ * <p>
+ * Caller data (source file, line and method) is only captured with <code>includeCallerData</code>.
+ * MDC (unless <code>includeMdc</code> is false) and key value pairs are prepended to message as
+ * <code>key=value</code>.
+ * <p>
+ * Level map:
+ *
+ * ERROR => ERROR
+ * WARN => WARNING
+ * INFO => INFO
+ * DEBUG => DEBUG
+ * TRACE => TRACE
+ */
+public class ResidueAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    public static final int DEFAULT_BATCH_DELAY = 10;
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 5000L;
+
+    private String configurationFile;
+    private boolean includeCallerData;
+    private boolean includeMdc = true;
+    private int batchSize = 1;
+    private int batchDelay = DEFAULT_BATCH_DELAY;
+    private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+
+    private Residue residue;
+    private boolean ownsResidue;
+    private volatile Thread batchFlusher;
+
+    private final ThreadLocal<Single> single = new ThreadLocal<Single>() {
+        @Override
+        protected Single initialValue() {
+            return new Single();
+        }
+    };
+
+    private final ConcurrentLinkedQueue<Batch> batches = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Batch> batch = new ThreadLocal<Batch>() {
+        @Override
+        protected Batch initialValue() {
+            final Batch b = new Batch(batchSize, Thread.currentThread());
+            batches.add(b);
+            return b;
+        }
+    };
+
+    /**
+     * Reusable event of a thread when not batching
+     */
+    private static class Single {
+        private final Residue.Event event = new Residue.Event();
+        private final EventText text = new EventText();
+    }
+
+    /**
+     * Events of a thread waiting to be handed over, guarded by itself as batch flusher drains it too
+     */
+    private static class Batch {
+        private final Thread owner;
+        private final ILoggingEvent[] pending;
+        private final Residue.Event[] events;
+        private final EventText[] texts;
+        private int size;
+
+        private Batch(int capacity, Thread owner) {
+            this.owner = owner;
+            pending = new ILoggingEvent[capacity];
+            events = new Residue.Event[capacity];
+            texts = new EventText[capacity];
+            for (int i = 0; i < capacity; ++i) {
+                events[i] = new Residue.Event();
+                texts[i] = new EventText();
+            }
+        }
+    }
+
+    /**
+     * @param configurationFile Client configuration for a new residue instance owned (connected and
+     *                          closed) by this appender
+     */
+    public void setConfigurationFile(String configurationFile) {
+        this.configurationFile = configurationFile;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    public void setIncludeMdc(boolean includeMdc) {
+        this.includeMdc = includeMdc;
+    }
+
+    /**
+     * @param batchSize Events a thread collects before handing them over, 1 (default) to log each event
+     *                  straight away
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param batchDelay Maximum milliseconds an event waits in batch
+     */
+    public void setBatchDelay(int batchDelay) {
+        this.batchDelay = batchDelay;
+    }
+
+    /**
+     * @param shutdownTimeout Milliseconds to wait for queued events to be sent when appender owns the
+     *                        residue instance and is stopped
+     */
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Uses given (already configured) instance instead of default one, has no effect once started
+     */
+    public void setResidue(Residue residue) {
+        this.residue = residue;
+    }
+
+    public Residue getResidue() {
+        return residue;
+    }
+
+    @Override
+    public void start() {
+        if (batchSize < 1) {
+            addError("batchSize must be at least 1");
+            return;
+        }
+        if (batchDelay < 1) {
+            addError("batchDelay must be at least 1");
+            return;
+        }
+        if (configurationFile != null && !configurationFile.isEmpty()) {
+            final Residue r = new Residue();
+            try {
+                r.loadConfigurations(configurationFile);
+            } catch (Exception e) {
+                addError("Unable to load residue configuration [" + configurationFile + "]", e);
+                return;
+            }
+            residue = r;
+            ownsResidue = true;
+            // connect in background, events are queued until connected
+            final Thread connect = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!r.open()) {
+                            addError("Unable to connect to residue server: " + r.getLastError());
+                        }
+                    } catch (Exception e) {
+                        addError("Unable to connect to residue server", e);
+                    }
+                }
+            }, "residue-logback-connect");
+            connect.setDaemon(true);
+            connect.start();
+        } else if (residue == null) {
+            residue = Residue.getInstance();
+        }
+        if (batchSize > 1) {
+            final Thread flusher = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (batchFlusher == Thread.currentThread()) {
+                        try {
+                            Thread.sleep(batchDelay);
+                        } catch (InterruptedException e) {
+                            break;
+                        }
+                        flushBatches();
+                    }
+                }
+            }, "residue-logback-batch");
+            flusher.setDaemon(true);
+            batchFlusher = flusher;
+            flusher.start();
+        }
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        final Thread flusher = batchFlusher;
+        if (flusher != null) {
+            batchFlusher = null;
+            flusher.interrupt();
+            try {
+                flusher.join(shutdownTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushBatches();
+        }
+        if (ownsResidue) {
+            try {
+                residue.flush(shutdownTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            residue.close();
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent e) {
+        final Residue.LoggingLevels level = toResidueLevel(e.getLevel());
+        if (!residue.isEnabled(level, 0)) {
+            return;
+        }
+        if (batchSize == 1) {
+            final Single s = single.get();
+            try {
+                residue.log(fill(s.event, s.text, e, level));
+            } finally {
+                s.text.clear();
+            }
+            return;
+        }
+        // capture what depends on logging thread before event waits in batch
+        e.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            e.getCallerData();
+        }
+        final Batch b = batch.get();
+        synchronized (b) {
+            b.pending[b.size++] = e;
+            if (b.size == b.pending.length) {
+                handOver(b);
+            }
+        }
+    }
+
+    /**
+     * Hands over pending events of all the threads and forgets batches of threads that have finished
+     */
+    private void flushBatches() {
+        final Iterator<Batch> it = batches.iterator();
+        while (it.hasNext()) {
+            final Batch b = it.next();
+            synchronized (b) {
+                if (b.size > 0) {
+                    handOver(b);
+                }
+            }
+            if (!b.owner.isAlive()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Should be called while holding lock on batch
+     */
+    private void handOver(Batch b) {
+        try {
+            for (int i = 0; i < b.size; ++i) {
+                final ILoggingEvent e = b.pending[i];
+                fill(b.events[i], b.texts[i], e, toResidueLevel(e.getLevel()));
+            }
+            residue.log(b.events, 0, b.size);
+        } finally {
+            for (int i = 0; i < b.size; ++i) {
+                b.pending[i] = null;
+                b.texts[i].clear();
+            }
+            b.size = 0;
+        }
+    }
+
+    private Residue.Event fill(Residue.Event event, EventText text, ILoggingEvent e, Residue.LoggingLevels level) {
+        event.reset()
+                .setDatetime(residue.getTime(e.getTimeStamp()))
+                .setLoggerId(e.getLoggerName())
+                .setMessage(text.set(e, includeMdc))
+                .setLevel(level)
+                .setThreadName(e.getThreadName());
+        if (includeCallerData) {
+            final StackTraceElement[] callerData = e.getCallerData();
+            if (callerData != null && callerData.length > 0) {
+                event.setSourceFilename(callerData[0].getFileName())
+                        .setSourceLineNumber(callerData[0].getLineNumber())
+                        .setSourceMethodName(callerData[0].getMethodName());
+            }
+        }
+        return event;
+    }
+
+    private static Residue.LoggingLevels toResidueLevel(Level level) {
+        switch (level.toInt()) {
+            case Level.ERROR_INT:
+                return Residue.LoggingLevels.ERROR;
+            case Level.WARN_INT:
+                return Residue.LoggingLevels.WARNING;
+            case Level.DEBUG_INT:
+                return Residue.LoggingLevels.DEBUG;
+            case Level.TRACE_INT:
+                return Residue.LoggingLevels.TRACE;
+            default:
+                return Residue.LoggingLevels.INFO;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+# Runs SLF4J provider vs slf4j-jdk14 benchmark (run from repository root after slf4j/compile.sh)
+#
+# Requires jmh-core, jmh-generator-annprocess (and their dependencies) and slf4j-jdk14 jars in lib/
+#
+# Usage: sh slf4j/benchmarks/run-benchmark.sh <client_config.json> [jmh options, e.g, -prof gc]
+CONFIG=$1
+if [ "$CONFIG" == "" ];then
+	echo "Usage: sh slf4j/benchmarks/run-benchmark.sh <client_config.json> [jmh options]"
+	exit 1
+fi
+shift
+CP="bin/slf4j:bin:lib/*"
+mkdir -p bin/slf4j-benchmarks
+javac -d bin/slf4j-benchmarks -cp "$CP" slf4j/benchmarks/src/com/abumq/residue/slf4j/benchmarks/*.java || exit 1
+java -cp "bin/slf4j-benchmarks:$CP" org.openjdk.jmh.Main Slf4jBridgeBenchmark -p config=$CONFIG "$@"
@@ -0,0 +1,138 @@
+/**
+ * Slf4jBridgeBenchmark.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.slf4j.benchmarks;
+
+import com.abumq.residue.Residue;
+import com.abumq.residue.slf4j.ResidueLoggerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.jul.JULServiceProvider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+
+/**
+ * Compares SLF4J through this provider against SLF4J through <code>slf4j-jdk14</code> and
+ * {@link Residue.ResidueLogHandler}, i.e, the way SLF4J applications used residue before.
+ * <p>
+ * Both loggers log to the same connected instance with minimum level INFO so debug benchmarks
+ * measure cost of a disabled statement. Use with <code>-prof gc</code> to compare allocations.
+ * <p>
+ * Usage (see <code>run-benchmark.sh</code>): <code>-p config=client_config.json</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class Slf4jBridgeBenchmark {
+
+    @Param({""})
+    public String config;
+
+    private Residue residue;
+    private Logger provider;
+    private Logger julBridge;
+    private java.util.logging.Logger julLogger;
+
+    private final long userId = 42L;
+    private final String host = "10.0.0.1";
+
+    @Setup
+    public void setup() throws Exception {
+        if (config == null || config.isEmpty()) {
+            throw new IllegalArgumentException("Client configuration is required, e.g, -p config=client_config.json");
+        }
+        residue = Residue.getInstance();
+        residue.loadConfigurations(config);
+        residue.setMinimumLevel(Residue.LoggingLevels.INFO);
+        if (!residue.open()) {
+            throw new IllegalStateException("Unable to connect: " + residue.getLastError());
+        }
+
+        provider = new ResidueLoggerFactory(residue, false).getLogger("benchmark");
+
+        julLogger = java.util.logging.Logger.getLogger("benchmark");
+        julLogger.setUseParentHandlers(false);
+        for (Handler h : julLogger.getHandlers()) {
+            julLogger.removeHandler(h);
+        }
+        julLogger.addHandler(new Residue.ResidueLogHandler(residue));
+        julLogger.setLevel(java.util.logging.Level.INFO);
+
+        JULServiceProvider jul = new JULServiceProvider();
+        jul.initialize();
+        julBridge = jul.getLoggerFactory().getLogger("benchmark");
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() throws Exception {
+        // don't let backlog of one iteration slow down the next
+        residue.flush(60000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        residue.close();
+    }
+
+    @Benchmark
+    public void providerInfo() {
+        provider.info("user {} logged in from {}", userId, host);
+    }
+
+    @Benchmark
+    public void julBridgeInfo() {
+        julBridge.info("user {} logged in from {}", userId, host);
+    }
+
+    @Benchmark
+    public void providerDisabledDebug() {
+        provider.debug("user {} logged in from {}", userId, host);
+    }
+
+    @Benchmark
+    public void julBridgeDisabledDebug() {
+        julBridge.debug("user {} logged in from {}", userId, host);
+    }
+
+    @Benchmark
+    public void providerFluentInfo() {
+        provider.atInfo().addKeyValue("user", userId).log("logged in from {}", host);
+    }
+
+    @Benchmark
+    public void julBridgeFluentInfo() {
+        julBridge.atInfo().addKeyValue("user", userId).log("logged in from {}", host);
+    }
+}
@@ -0,0 +1,7 @@
+# Builds bin/residue-slf4j.jar (run from repository root after compile-lib.sh)
+#
+# Requires slf4j-api 2.x jar in lib/
+mkdir -p bin/slf4j
+javac -cp "bin:./lib/*" -d bin/slf4j/ slf4j/src/com/abumq/residue/slf4j/*.java || exit 1
+cp -r slf4j/src/META-INF bin/slf4j/
+jar cvf bin/residue-slf4j.jar -C bin/slf4j .
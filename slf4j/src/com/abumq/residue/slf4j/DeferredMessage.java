@@ -0,0 +1,164 @@
+/**
+ * DeferredMessage.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.slf4j;
+
+import org.slf4j.event.KeyValuePair;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SLF4J message that is formatted (in to reusable buffer) the first time it is read.
+ * <p>
+ * Residue only reads message of an event while encoding it, i.e, after level, rate limits etc are
+ * checked, so message that is discarded is never formatted. Not thread-safe, one per thread
+ */
+class DeferredMessage implements CharSequence {
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private StringBuilder text = new StringBuilder(256);
+    private boolean formatted;
+    private String pattern;
+    private Object[] arguments;
+    private Throwable throwable;
+    private List<KeyValuePair> keyValuePairs;
+
+    DeferredMessage set(String pattern, Object[] arguments, Throwable throwable, List<KeyValuePair> keyValuePairs) {
+        this.pattern = pattern;
+        this.arguments = arguments;
+        this.throwable = throwable;
+        this.keyValuePairs = keyValuePairs;
+        formatted = false;
+        return this;
+    }
+
+    /**
+     * Drops references to arguments (and oversized buffer) once event is logged
+     */
+    void clear() {
+        set(null, null, null, null);
+        if (text.capacity() > MAX_RETAINED_CAPACITY) {
+            text = new StringBuilder(256);
+        }
+    }
+
+    @Override
+    public int length() {
+        return text().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return text().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text().toString();
+    }
+
+    private StringBuilder text() {
+        if (!formatted) {
+            text.setLength(0);
+            if (keyValuePairs != null) {
+                for (KeyValuePair kv : keyValuePairs) {
+                    text.append(kv.key).append('=');
+                    appendArgument(text, kv.value);
+                    text.append(' ');
+                }
+            }
+            format(text, pattern, arguments);
+            if (throwable != null) {
+                StringWriter trace = new StringWriter();
+                throwable.printStackTrace(new PrintWriter(trace));
+                text.append('\n').append(trace);
+            }
+            formatted = true;
+        }
+        return text;
+    }
+
+    /**
+     * Replaces <code>{}</code> anchors with arguments, same as SLF4J's <code>MessageFormatter</code>,
+     * i.e, <code>\{}</code> is literal <code>{}</code> and <code>\\{}</code> is backslash followed by argument
+     */
+    static void format(StringBuilder out, String pattern, Object[] arguments) {
+        if (pattern == null) {
+            out.append("null");
+            return;
+        }
+        if (arguments == null || arguments.length == 0) {
+            out.append(pattern);
+            return;
+        }
+        int from = 0;
+        int argument = 0;
+        while (argument < arguments.length) {
+            final int anchor = pattern.indexOf("{}", from);
+            if (anchor == -1) {
+                break;
+            }
+            final boolean escaped = anchor > 0 && pattern.charAt(anchor - 1) == '\\';
+            final boolean escapedBackslash = escaped && anchor > 1 && pattern.charAt(anchor - 2) == '\\';
+            if (escaped && !escapedBackslash) {
+                out.append(pattern, from, anchor - 1).append("{}");
+            } else {
+                out.append(pattern, from, escapedBackslash ? anchor - 1 : anchor);
+                appendArgument(out, arguments[argument++]);
+            }
+            from = anchor + 2;
+        }
+        out.append(pattern, from, pattern.length());
+    }
+
+    private static void appendArgument(StringBuilder out, Object o) {
+        if (o == null || !o.getClass().isArray()) {
+            try {
+                out.append(o);
+            } catch (RuntimeException e) {
+                out.append("[FAILED toString()]");
+            }
+        } else if (o instanceof Object[]) {
+            out.append(Arrays.deepToString((Object[]) o));
+        } else if (o instanceof int[]) {
+            out.append(Arrays.toString((int[]) o));
+        } else if (o instanceof long[]) {
+            out.append(Arrays.toString((long[]) o));
+        } else if (o instanceof byte[]) {
+            out.append(Arrays.toString((byte[]) o));
+        } else if (o instanceof char[]) {
+            out.append(Arrays.toString((char[]) o));
+        } else if (o instanceof short[]) {
+            out.append(Arrays.toString((short[]) o));
+        } else if (o instanceof boolean[]) {
+            out.append(Arrays.toString((boolean[]) o));
+        } else if (o instanceof float[]) {
+            out.append(Arrays.toString((float[]) o));
+        } else {
+            out.append(Arrays.toString((double[]) o));
+        }
+    }
+}
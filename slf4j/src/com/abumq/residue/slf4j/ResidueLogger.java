@@ -0,0 +1,185 @@
+/**
+ * ResidueLogger.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.slf4j;
+
+import com.abumq.residue.Residue;
+
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+import org.slf4j.event.Level;
+import org.slf4j.event.LoggingEvent;
+import org.slf4j.helpers.LegacyAbstractLogger;
+import org.slf4j.spi.LoggingEventAware;
+
+import java.util.List;
+
+/**
+ * SLF4J logger that hands events straight to {@link Residue#log(Residue.Event)}, i.e, without
+ * <code>LogRecord</code>, level mapping through JUL or stack walk (unless location is enabled).
+ * <p>
+ * Level checks (<code>isDebugEnabled()</code> etc) are residue's level thresholds, and messages are
+ * formatted only once residue accepts the event (see {@link DeferredMessage}).
+ * <p>
+ * Level map:
+ *
+ * TRACE => TRACE
+ * DEBUG => DEBUG
+ * INFO => INFO
+ * WARN => WARNING
+ * ERROR => ERROR
+ */
+public class ResidueLogger extends LegacyAbstractLogger implements LoggingEventAware {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String PACKAGE_PREFIX = ResidueLogger.class.getPackage().getName() + ".";
+    private static final String SLF4J_PACKAGE_PREFIX = "org.slf4j.";
+
+    private static final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
+    private final transient Residue residue;
+    private final boolean includeLocation;
+
+    ResidueLogger(String name, Residue residue, boolean includeLocation) {
+        this.name = name;
+        this.residue = residue;
+        this.includeLocation = includeLocation;
+    }
+
+    /**
+     * Reusable event of a thread
+     */
+    private static class ThreadState {
+        private final Residue.Event event = new Residue.Event();
+        private final DeferredMessage message = new DeferredMessage();
+        private boolean busy; // e.g, argument's toString() logs while event is being encoded
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return residue.isEnabled(Residue.LoggingLevels.TRACE, 0);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return residue.isEnabled(Residue.LoggingLevels.DEBUG, 0);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return residue.isEnabled(Residue.LoggingLevels.INFO, 0);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return residue.isEnabled(Residue.LoggingLevels.WARNING, 0);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return residue.isEnabled(Residue.LoggingLevels.ERROR, 0);
+    }
+
+    @Override
+    protected String getFullyQualifiedCallerName() {
+        return null;
+    }
+
+    @Override
+    protected void handleNormalizedLoggingCall(Level level, Marker marker, String messagePattern,
+                                               Object[] arguments, Throwable throwable) {
+        log(level, messagePattern, arguments, throwable, null, 0L, null);
+    }
+
+    /**
+     * Fluent API events, e.g, <code>logger.atInfo().addKeyValue("user", id).log("Logged in")</code>.
+     * Key value pairs are prepended to message as <code>key=value</code>
+     */
+    @Override
+    public void log(LoggingEvent e) {
+        if (!residue.isEnabled(toResidueLevel(e.getLevel()), 0)) {
+            return;
+        }
+        log(e.getLevel(), e.getMessage(), e.getArgumentArray(), e.getThrowable(), e.getKeyValuePairs(),
+                e.getTimeStamp(), e.getThreadName());
+    }
+
+    private void log(Level level, String pattern, Object[] arguments, Throwable throwable,
+                     List<KeyValuePair> keyValuePairs, long timestamp, String threadName) {
+        ThreadState state = threadState.get();
+        if (state.busy) {
+            state = new ThreadState();
+        }
+        state.busy = true;
+        try {
+            final Residue.Event event = state.event.reset()
+                    .setDatetime(residue.getTime(timestamp > 0 ? timestamp : System.currentTimeMillis()))
+                    .setLoggerId(name)
+                    .setMessage(state.message.set(pattern, arguments, throwable, keyValuePairs))
+                    .setLevel(toResidueLevel(level))
+                    .setThreadName(threadName != null ? threadName : Thread.currentThread().getName());
+            if (includeLocation) {
+                final StackTraceElement caller = getCaller();
+                if (caller != null) {
+                    event.setSourceFilename(caller.getFileName())
+                            .setSourceLineNumber(caller.getLineNumber())
+                            .setSourceMethodName(caller.getMethodName());
+                }
+            }
+            residue.log(event);
+        } finally {
+            state.message.clear();
+            state.busy = false;
+        }
+    }
+
+    private static Residue.LoggingLevels toResidueLevel(Level level) {
+        switch (level) {
+            case TRACE:
+                return Residue.LoggingLevels.TRACE;
+            case DEBUG:
+                return Residue.LoggingLevels.DEBUG;
+            case WARN:
+                return Residue.LoggingLevels.WARNING;
+            case ERROR:
+                return Residue.LoggingLevels.ERROR;
+            default:
+                return Residue.LoggingLevels.INFO;
+        }
+    }
+
+    /**
+     * @return First stack frame outside of SLF4J and this provider
+     */
+    private static StackTraceElement getCaller() {
+        final StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        for (StackTraceElement frame : stackTrace) {
+            final String className = frame.getClassName();
+            if (!className.startsWith(PACKAGE_PREFIX) && !className.startsWith(SLF4J_PACKAGE_PREFIX)) {
+                return frame;
+            }
+        }
+        return null;
+    }
+}
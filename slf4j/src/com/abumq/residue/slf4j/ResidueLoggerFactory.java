@@ -0,0 +1,57 @@
+/**
+ * ResidueLoggerFactory.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.slf4j;
+
+import com.abumq.residue.Residue;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link ResidueLogger}s for a residue instance, logger name is used as residue logger ID
+ */
+public class ResidueLoggerFactory implements ILoggerFactory {
+
+    private final Residue residue;
+    private final boolean includeLocation;
+    private final ConcurrentHashMap<String, ResidueLogger> loggers = new ConcurrentHashMap<>();
+
+    /**
+     * @param includeLocation Whether to resolve source file, line and method of each log (walks stack trace)
+     */
+    public ResidueLoggerFactory(final Residue residue, final boolean includeLocation) {
+        this.residue = residue;
+        this.includeLocation = includeLocation;
+    }
+
+    @Override
+    public Logger getLogger(String name) {
+        ResidueLogger logger = loggers.get(name);
+        if (logger == null) {
+            logger = new ResidueLogger(name, residue, includeLocation);
+            ResidueLogger existing = loggers.putIfAbsent(name, logger);
+            if (existing != null) {
+                logger = existing;
+            }
+        }
+        return logger;
+    }
+}
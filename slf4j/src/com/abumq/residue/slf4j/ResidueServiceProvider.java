@@ -0,0 +1,99 @@
+/**
+ * ResidueServiceProvider.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.slf4j;
+
+import com.abumq.residue.Residue;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.IMarkerFactory;
+import org.slf4j.helpers.BasicMDCAdapter;
+import org.slf4j.helpers.BasicMarkerFactory;
+import org.slf4j.spi.MDCAdapter;
+import org.slf4j.spi.SLF4JServiceProvider;
+
+/**
+ * SLF4J 2.x provider that logs to default residue instance ({@link Residue#getInstance()}), registered
+ * using <code>META-INF/services/org.slf4j.spi.SLF4JServiceProvider</code>.
+ * <p>
+ * Configure and connect default instance as usual, messages logged before that are queued. Alternatively
+ * set system properties:
+ * <ul>
+ *     <li><code>residue.configurationFile</code>: Client configuration to load (and connect using) on initialization</li>
+ *     <li><code>residue.includeLocation</code>: <code>true</code> to send source file, line and method</li>
+ * </ul>
+ */
+public class ResidueServiceProvider implements SLF4JServiceProvider {
+
+    public static final String REQUESTED_API_VERSION = "2.0.99";
+
+    private ILoggerFactory loggerFactory;
+    private IMarkerFactory markerFactory;
+    private MDCAdapter mdcAdapter;
+
+    @Override
+    public ILoggerFactory getLoggerFactory() {
+        return loggerFactory;
+    }
+
+    @Override
+    public IMarkerFactory getMarkerFactory() {
+        return markerFactory;
+    }
+
+    @Override
+    public MDCAdapter getMDCAdapter() {
+        return mdcAdapter;
+    }
+
+    @Override
+    public String getRequestedApiVersion() {
+        return REQUESTED_API_VERSION;
+    }
+
+    @Override
+    public void initialize() {
+        final Residue residue = Residue.getInstance();
+        markerFactory = new BasicMarkerFactory();
+        mdcAdapter = new BasicMDCAdapter();
+        loggerFactory = new ResidueLoggerFactory(residue, Boolean.getBoolean("residue.includeLocation"));
+
+        final String configurationFile = System.getProperty("residue.configurationFile");
+        if (configurationFile != null && !configurationFile.isEmpty()) {
+            try {
+                residue.loadConfigurations(configurationFile);
+            } catch (Exception e) {
+                System.err.println("Residue: unable to load " + configurationFile + " [" + e.getMessage() + "]");
+                return;
+            }
+            // connect in background, logs are queued until connected
+            final Thread connect = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        residue.open();
+                    } catch (Exception e) {
+                        System.err.println("Residue: unable to connect [" + e.getMessage() + "]");
+                    }
+                }
+            }, "residue-slf4j-connect");
+            connect.setDaemon(true);
+            connect.start();
+        }
+    }
+}
@@ -17,6 +17,8 @@
 package com.abumq.residue;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 /**
  * Utilities for encoding and decoding the Base64 representation of
@@ -173,6 +175,139 @@ public class Base64 {
         return temp;
     }
 
+    /**
+     * Decode the Base64-encoded data remaining in input straight in to
+     * output, without allocating when both buffers are backed by
+     * (writable) arrays. Positions of both buffers are advanced.
+     *
+     * <p>The padding '=' characters at the end are considered optional, but
+     * if any are present, there must be the correct number of them.
+     *
+     * @param input  the data to decode
+     * @param output the buffer to write decoded data to, which must have
+     *               at least {@link #decodedMaxLength(int)} bytes remaining
+     * @param flags  controls certain features of the decoded output.
+     *               Pass {@code DEFAULT} to decode standard Base64.
+     * @return the number of bytes written to output
+     *
+     * @throws IllegalArgumentException if the input contains
+     * incorrect padding
+     * @throws BufferOverflowException if output does not have enough space
+     */
+    public static int decode(ByteBuffer input, ByteBuffer output, int flags) {
+        int len = input.remaining();
+        if (output.remaining() < decodedMaxLength(len)) {
+            throw new BufferOverflowException();
+        }
+        int written;
+        if (input.hasArray() && output.hasArray() && !output.isReadOnly()) {
+            written = decode(input.array(), input.arrayOffset() + input.position(), len,
+                    output.array(), output.arrayOffset() + output.position(), flags);
+            output.position(output.position() + written);
+        } else {
+            byte[] in = new byte[len];
+            input.duplicate().get(in);
+            byte[] out = new byte[decodedMaxLength(len)];
+            written = decode(in, 0, len, out, 0, flags);
+            output.put(out, 0, written);
+        }
+        input.position(input.position() + len);
+        return written;
+    }
+
+    /**
+     * Decode the Base64-encoded data in input in to output array.
+     *
+     * @param input        the data to decode
+     * @param offset       the position within the input array at which to start
+     * @param len          the number of bytes of input to decode
+     * @param output       the array to write decoded data to, which must have
+     *                     at least {@link #decodedMaxLength(int)} bytes after
+     *                     outputOffset
+     * @param outputOffset the position within the output array at which to start
+     * @param flags        controls certain features of the decoded output.
+     *                     Pass {@code DEFAULT} to decode standard Base64.
+     * @return the number of bytes written to output
+     *
+     * @throws IllegalArgumentException if the input contains
+     * incorrect padding
+     */
+    public static int decode(byte[] input, int offset, int len, byte[] output, int outputOffset, int flags) {
+        final int[] alphabet = ((flags & URL_SAFE) == 0) ? Decoder.DECODE : Decoder.DECODE_WEBSAFE;
+        int p = offset;
+        final int end = offset + len;
+        int op = outputOffset;
+        int state = 0;   // number of data characters read in current tuple
+        int padding = 0;
+        int value = 0;
+
+        while (p < end) {
+            // Fast path: whole tuple of data characters (see Decoder)
+            if (state == 0 && padding == 0) {
+                int v;
+                while (p + 4 <= end &&
+                       (v = ((alphabet[input[p] & 0xff] << 18) |
+                             (alphabet[input[p+1] & 0xff] << 12) |
+                             (alphabet[input[p+2] & 0xff] << 6) |
+                             (alphabet[input[p+3] & 0xff]))) >= 0) {
+                    output[op] = (byte) (v >> 16);
+                    output[op+1] = (byte) (v >> 8);
+                    output[op+2] = (byte) v;
+                    op += 3;
+                    p += 4;
+                }
+                if (p >= end) break;
+            }
+
+            int d = alphabet[input[p++] & 0xff];
+            if (d >= 0) {
+                if (padding > 0) {
+                    throw new IllegalArgumentException("bad base-64");
+                }
+                value = (value << 6) | d;
+                if (++state == 4) {
+                    output[op] = (byte) (value >> 16);
+                    output[op+1] = (byte) (value >> 8);
+                    output[op+2] = (byte) value;
+                    op += 3;
+                    state = 0;
+                    value = 0;
+                }
+            } else if (d == Decoder.EQUALS) {
+                if (state < 2 || state + ++padding > 4) {
+                    throw new IllegalArgumentException("bad base-64");
+                }
+            }
+            // else Decoder.SKIP
+        }
+
+        if (padding > 0 && state + padding != 4) {
+            throw new IllegalArgumentException("bad base-64");
+        }
+        switch (state) {
+            case 0:
+                break;
+            case 1:
+                throw new IllegalArgumentException("bad base-64");
+            case 2:
+                output[op++] = (byte) (value >> 4);
+                break;
+            case 3:
+                output[op++] = (byte) (value >> 10);
+                output[op++] = (byte) (value >> 2);
+                break;
+        }
+        return op - outputOffset;
+    }
+
+    /**
+     * @return the most number of bytes {@code len} bytes of Base64 could
+     * decode to
+     */
+    public static int decodedMaxLength(int len) {
+        return len * 3 / 4;
+    }
+
     /* package */ static class Decoder extends Coder {
         /**
          * Lookup table for turning bytes into their position in the
@@ -510,10 +645,97 @@ public class Base64 {
         Encoder encoder = new Encoder(flags, null);
 
         // Compute the exact length of the array we will produce.
+        int output_len = encodedLength(len, flags);
+
+        encoder.output = new byte[output_len];
+        encoder.process(input, offset, len, true);
+
+        assert encoder.op == output_len;
+
+        return encoder.output;
+    }
+
+    /**
+     * Base64-encode the data remaining in input straight in to output,
+     * without allocating when both buffers are backed by (writable)
+     * arrays. Positions of both buffers are advanced.
+     *
+     * <p>Output is the same as {@link #encode(byte[], int, int, int)},
+     * pass {@code NO_WRAP} to leave out the line breaks.
+     *
+     * @param input  the data to encode
+     * @param output the buffer to write encoded data to, which must have
+     *               at least {@link #encodedLength(int, int)} bytes remaining
+     * @param flags  controls certain features of the encoded output.
+     *               Passing {@code DEFAULT} results in output that
+     *               adheres to RFC 2045.
+     * @return the number of bytes written to output
+     *
+     * @throws BufferOverflowException if output does not have enough space
+     */
+    public static int encode(ByteBuffer input, ByteBuffer output, int flags) {
+        int len = input.remaining();
+        int output_len = encodedLength(len, flags);
+        if (output.remaining() < output_len) {
+            throw new BufferOverflowException();
+        }
+        if (input.hasArray() && output.hasArray() && !output.isReadOnly()) {
+            encode(input.array(), input.arrayOffset() + input.position(), len,
+                    output.array(), output.arrayOffset() + output.position(), flags);
+            output.position(output.position() + output_len);
+        } else {
+            byte[] in = new byte[len];
+            input.duplicate().get(in);
+            byte[] out = new byte[output_len];
+            encode(in, 0, len, out, 0, flags);
+            output.put(out);
+        }
+        input.position(input.position() + len);
+        return output_len;
+    }
+
+    /**
+     * Base64-encode the given data in to output array.
+     *
+     * @param input        the data to encode
+     * @param offset       the position within the input array at which to
+     *                     start
+     * @param len          the number of bytes of input to encode
+     * @param output       the array to write encoded data to, which must have
+     *                     at least {@link #encodedLength(int, int)} bytes after
+     *                     outputOffset
+     * @param outputOffset the position within the output array at which to
+     *                     start
+     * @param flags        controls certain features of the encoded output.
+     *                     Passing {@code DEFAULT} results in output that
+     *                     adheres to RFC 2045.
+     * @return the number of bytes written to output
+     */
+    public static int encode(byte[] input, int offset, int len, byte[] output, int outputOffset, int flags) {
+        final byte[] alphabet = ((flags & URL_SAFE) == 0) ? Encoder.ENCODE : Encoder.ENCODE_WEBSAFE;
+        final boolean do_newline = (flags & NO_WRAP) == 0;
+        final boolean do_cr = (flags & CRLF) != 0;
+
+        // end of whole 3-byte groups
+        final int groupsEnd = offset + len - len % 3;
+        int count = do_newline ? Encoder.LINE_GROUPS : -1;
+
+        int op = Encoder.encodeGroups(input, offset, groupsEnd, output, outputOffset, alphabet, count, do_cr);
+        count = Encoder.groupsLeftOnLine(count, len / 3);
+        op = Encoder.encodeTail(input, groupsEnd, len % 3, output, op, alphabet,
+                (flags & NO_PADDING) == 0, do_newline, do_cr, count != Encoder.LINE_GROUPS);
+        return op - outputOffset;
+    }
+
+    /**
+     * @return the exact number of bytes {@code len} bytes encode to
+     * with given flags
+     */
+    public static int encodedLength(int len, int flags) {
         int output_len = len / 3 * 4;
 
         // Account for the tail of the data and the padding bytes, if any.
-        if (encoder.do_padding) {
+        if ((flags & NO_PADDING) == 0) {
             if (len % 3 > 0) {
                 output_len += 4;
             }
@@ -526,17 +748,11 @@ public class Base64 {
         }
 
         // Account for the newlines, if any.
-        if (encoder.do_newline && len > 0) {
+        if ((flags & NO_WRAP) == 0 && len > 0) {
             output_len += (((len-1) / (3 * Encoder.LINE_GROUPS)) + 1) *
-                (encoder.do_cr ? 2 : 1);
+                ((flags & CRLF) != 0 ? 2 : 1);
         }
-
-        encoder.output = new byte[output_len];
-        encoder.process(input, offset, len, true);
-
-        assert encoder.op == output_len;
-
-        return encoder.output;
+        return output_len;
     }
 
     /* package */ static class Encoder extends Coder {
@@ -657,83 +873,112 @@ public class Base64 {
             // At this point either there is no tail, or there are fewer
             // than 3 bytes of input available.
 
-            // The main loop, turning 3 input bytes into 4 output bytes on
-            // each iteration.
-            while (p+3 <= len) {
-                v = ((input[p] & 0xff) << 16) |
-                    ((input[p+1] & 0xff) << 8) |
-                    (input[p+2] & 0xff);
-                output[op] = alphabet[(v >> 18) & 0x3f];
-                output[op+1] = alphabet[(v >> 12) & 0x3f];
-                output[op+2] = alphabet[(v >> 6) & 0x3f];
-                output[op+3] = alphabet[v & 0x3f];
-                p += 3;
-                op += 4;
-                if (--count == 0) {
-                    if (do_cr) output[op++] = '\r';
-                    output[op++] = '\n';
-                    count = LINE_GROUPS;
-                }
+            final int groupsEnd = p + (len - p) / 3 * 3;
+            op = encodeGroups(input, p, groupsEnd, output, op, alphabet, count, do_cr);
+            count = groupsLeftOnLine(count, (groupsEnd - p) / 3);
+            p = groupsEnd;
+
+            // Save the leftovers in tail, there should be at most two
+            // bytes total.
+            while (p < len) {
+                tail[tailLen++] = input[p++];
             }
 
             if (finish) {
-                // Finish up the tail of the input.  Note that we need to
-                // consume any bytes in tail before any bytes
-                // remaining in input; there should be at most two bytes
-                // total.
-
-                if (p-tailLen == len-1) {
-                    int t = 0;
-                    v = ((tailLen > 0 ? tail[t++] : input[p++]) & 0xff) << 4;
-                    tailLen -= t;
-                    output[op++] = alphabet[(v >> 6) & 0x3f];
-                    output[op++] = alphabet[v & 0x3f];
-                    if (do_padding) {
-                        output[op++] = '=';
-                        output[op++] = '=';
-                    }
-                    if (do_newline) {
-                        if (do_cr) output[op++] = '\r';
-                        output[op++] = '\n';
-                    }
-                } else if (p-tailLen == len-2) {
-                    int t = 0;
-                    v = (((tailLen > 1 ? tail[t++] : input[p++]) & 0xff) << 10) |
-                        (((tailLen > 0 ? tail[t++] : input[p++]) & 0xff) << 2);
-                    tailLen -= t;
-                    output[op++] = alphabet[(v >> 12) & 0x3f];
-                    output[op++] = alphabet[(v >> 6) & 0x3f];
-                    output[op++] = alphabet[v & 0x3f];
-                    if (do_padding) {
-                        output[op++] = '=';
-                    }
-                    if (do_newline) {
+                op = encodeTail(tail, 0, tailLen, output, op, alphabet,
+                        do_padding, do_newline, do_cr, count != LINE_GROUPS);
+                tailLen = 0;
+            }
+
+            this.op = op;
+            this.count = count;
+
+            return true;
+        }
+
+        /**
+         * Encodes whole 3-byte groups of input, i.e, {@code end - p} must be
+         * a multiple of 3, breaking line after every {@link #LINE_GROUPS}
+         * groups. This is the main loop of both incremental and one-shot
+         * encoding.
+         *
+         * @param count groups left on current line, or -1 for no line breaks
+         * @return the position in output after encoded data
+         */
+        static int encodeGroups(byte[] input, int p, int end, byte[] output, int op,
+                                byte[] alphabet, int count, boolean do_cr) {
+            while (p < end) {
+                // encode up to end of current line without checking for line break
+                final int lineEnd = count > 0 ? Math.min(p + 3 * count, end) : end;
+                final int groups = (lineEnd - p) / 3;
+                while (p < lineEnd) {
+                    int v = ((input[p] & 0xff) << 16) |
+                            ((input[p+1] & 0xff) << 8) |
+                            (input[p+2] & 0xff);
+                    output[op] = alphabet[(v >> 18) & 0x3f];
+                    output[op+1] = alphabet[(v >> 12) & 0x3f];
+                    output[op+2] = alphabet[(v >> 6) & 0x3f];
+                    output[op+3] = alphabet[v & 0x3f];
+                    p += 3;
+                    op += 4;
+                }
+                if (count > 0) {
+                    count -= groups;
+                    if (count == 0) {
                         if (do_cr) output[op++] = '\r';
                         output[op++] = '\n';
+                        count = LINE_GROUPS;
                     }
-                } else if (do_newline && op > 0 && count != LINE_GROUPS) {
-                    if (do_cr) output[op++] = '\r';
-                    output[op++] = '\n';
-                }
-
-                assert tailLen == 0;
-                assert p == len;
-            } else {
-                // Save the leftovers in tail to be consumed on the next
-                // call to encodeInternal.
-
-                if (p == len-1) {
-                    tail[tailLen++] = input[p];
-                } else if (p == len-2) {
-                    tail[tailLen++] = input[p];
-                    tail[tailLen++] = input[p+1];
                 }
             }
+            return op;
+        }
 
-            this.op = op;
-            this.count = count;
+        /**
+         * @return groups left on current line after {@link #encodeGroups}
+         * encoded given number of groups starting with {@code count} left
+         */
+        static int groupsLeftOnLine(int count, int groups) {
+            if (count < 0) {
+                return count;
+            }
+            count -= groups % LINE_GROUPS;
+            return count > 0 ? count : count + LINE_GROUPS;
+        }
 
-            return true;
+        /**
+         * Encodes final 0, 1 or 2 bytes of input (with padding, if any)
+         * and ends the line if it is open.
+         *
+         * @param lineOpen whether current line has encoded data
+         * @return the position in output after encoded data
+         */
+        static int encodeTail(byte[] input, int p, int len, byte[] output, int op, byte[] alphabet,
+                              boolean do_padding, boolean do_newline, boolean do_cr, boolean lineOpen) {
+            if (len == 1) {
+                int v = (input[p] & 0xff) << 4;
+                output[op++] = alphabet[(v >> 6) & 0x3f];
+                output[op++] = alphabet[v & 0x3f];
+                if (do_padding) {
+                    output[op++] = '=';
+                    output[op++] = '=';
+                }
+                lineOpen = true;
+            } else if (len == 2) {
+                int v = ((input[p] & 0xff) << 10) | ((input[p+1] & 0xff) << 2);
+                output[op++] = alphabet[(v >> 12) & 0x3f];
+                output[op++] = alphabet[(v >> 6) & 0x3f];
+                output[op++] = alphabet[v & 0x3f];
+                if (do_padding) {
+                    output[op++] = '=';
+                }
+                lineOpen = true;
+            }
+            if (do_newline && lineOpen) {
+                if (do_cr) output[op++] = '\r';
+                output[op++] = '\n';
+            }
+            return op;
         }
     }
 
@@ -0,0 +1,237 @@
+/**
+ * ResidueFlightRecorder.java
+ *
+ * Official Java client library for Residue logging server
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Records {@link Residue.Recorder} hooks as JDK Flight Recorder events.
+ * <p>
+ * Kept out of Residue.java as <code>jdk.jfr</code> requires JDK 11 (or 8u262) and is not available on
+ * Android. This class is loaded reflectively, if it is not compiled in or JFR is not available the no-op
+ * recorder is used. Events are only allocated (and timed) while they're enabled in a recording, e.g,
+ * <pre>java -XX:StartFlightRecording:settings=profile ...</pre>
+ */
+class ResidueFlightRecorder extends Residue.Recorder {
+
+    @Name("com.abumq.residue.Handshake")
+    @Label("Residue Handshake")
+    @Category("Residue")
+    @Description("Phase of connecting to residue server (socket, key, connect, acknowledge, logging_socket or resume)")
+    static class HandshakeEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Server")
+        String server;
+
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name("com.abumq.residue.Touch")
+    @Label("Residue Touch")
+    @Category("Residue")
+    @Description("Touch request to renew client age, from send to response (or timeout)")
+    static class TouchEvent extends Event {
+        @Label("Client ID")
+        String clientId;
+
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name("com.abumq.residue.Dispatch")
+    @Label("Residue Dispatch")
+    @Category("Residue")
+    @Description("Log request (or bulk) taken from backlog, built and written to logging socket. "
+            + "Includes compression and encryption, these are also recorded separately unless bulk was built incrementally")
+    static class DispatchEvent extends Event {
+        @Label("Items")
+        int items;
+
+        @Label("Frame Size")
+        @DataAmount(DataAmount.BYTES)
+        int bytes;
+
+        @Label("Bulk")
+        boolean bulk;
+
+        @Label("From Journal")
+        boolean fromJournal;
+    }
+
+    @Name("com.abumq.residue.Compress")
+    @Label("Residue Compress")
+    @Category("Residue")
+    static class CompressEvent extends Event {
+        @Label("Codec")
+        String codec;
+
+        @Label("Input Size")
+        @DataAmount(DataAmount.BYTES)
+        int inputBytes;
+
+        @Label("Output Size")
+        @DataAmount(DataAmount.BYTES)
+        int outputBytes;
+    }
+
+    @Name("com.abumq.residue.Encrypt")
+    @Label("Residue Encrypt")
+    @Category("Residue")
+    @Description("AES encryption and base64 framing of log request")
+    static class EncryptEvent extends Event {
+        @Label("Input Size")
+        @DataAmount(DataAmount.BYTES)
+        int inputBytes;
+
+        @Label("Frame Size")
+        @DataAmount(DataAmount.BYTES)
+        int outputBytes;
+    }
+
+    @Name("com.abumq.residue.BacklogOverflow")
+    @Label("Residue Backlog Overflow")
+    @Category("Residue")
+    @Description("Backlog grew past journal spill threshold and was spilled to journal")
+    static class BacklogOverflowEvent extends Event {
+        @Label("Backlog Size")
+        int backlogSize;
+
+        @Label("Threshold")
+        int threshold;
+
+        @Label("Spilled")
+        long spilled;
+    }
+
+    @Override
+    Object beginHandshake() {
+        return begin(new HandshakeEvent());
+    }
+
+    @Override
+    void endHandshake(Object event, String phase, String server, boolean success) {
+        if (event != null) {
+            HandshakeEvent e = (HandshakeEvent) event;
+            e.phase = phase;
+            e.server = server;
+            e.success = success;
+            e.commit();
+        }
+    }
+
+    @Override
+    Object beginTouch() {
+        return begin(new TouchEvent());
+    }
+
+    @Override
+    void endTouch(Object event, String clientId, boolean success) {
+        if (event != null) {
+            TouchEvent e = (TouchEvent) event;
+            e.clientId = clientId;
+            e.success = success;
+            e.commit();
+        }
+    }
+
+    @Override
+    Object beginDispatch() {
+        return begin(new DispatchEvent());
+    }
+
+    @Override
+    void endDispatch(Object event, int items, int bytes, boolean bulk, boolean fromJournal) {
+        if (event != null) {
+            DispatchEvent e = (DispatchEvent) event;
+            e.items = items;
+            e.bytes = bytes;
+            e.bulk = bulk;
+            e.fromJournal = fromJournal;
+            e.commit();
+        }
+    }
+
+    @Override
+    Object beginCompress() {
+        return begin(new CompressEvent());
+    }
+
+    @Override
+    void endCompress(Object event, String codec, int inputBytes, int outputBytes) {
+        if (event != null) {
+            CompressEvent e = (CompressEvent) event;
+            e.codec = codec;
+            e.inputBytes = inputBytes;
+            e.outputBytes = outputBytes;
+            e.commit();
+        }
+    }
+
+    @Override
+    Object beginEncrypt() {
+        return begin(new EncryptEvent());
+    }
+
+    @Override
+    void endEncrypt(Object event, int inputBytes, int outputBytes) {
+        if (event != null) {
+            EncryptEvent e = (EncryptEvent) event;
+            e.inputBytes = inputBytes;
+            e.outputBytes = outputBytes;
+            e.commit();
+        }
+    }
+
+    @Override
+    Object beginBacklogOverflow() {
+        return begin(new BacklogOverflowEvent());
+    }
+
+    @Override
+    void endBacklogOverflow(Object event, int backlogSize, int threshold, long spilled) {
+        if (event != null) {
+            BacklogOverflowEvent e = (BacklogOverflowEvent) event;
+            e.backlogSize = backlogSize;
+            e.threshold = threshold;
+            e.spilled = spilled;
+            e.commit();
+        }
+    }
+
+    /**
+     * @return Started event or null if event type is not enabled in any recording
+     */
+    private static Event begin(Event event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+}
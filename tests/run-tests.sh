@@ -0,0 +1,16 @@
+# Runs test programs against stand-in server on loopback (run from repository root after compile-lib.sh)
+#
+# Usage: sh tests/run-tests.sh [TestName ...]
+CP="bin:bin/Residue.jar:lib/*"
+mkdir -p bin/tests
+javac -d bin/tests -cp "$CP" tests/src/com/abumq/residue/tests/*.java || exit 1
+TESTS=$@
+if [ "$TESTS" == "" ];then
+	TESTS=$(cd tests/src/com/abumq/residue/tests && ls *Test.java | sed 's/\.java$//')
+fi
+FAILED=0
+for t in $TESTS; do
+	echo "== $t"
+	java -cp "bin/tests:$CP" com.abumq.residue.tests.$t || FAILED=1
+done
+exit $FAILED
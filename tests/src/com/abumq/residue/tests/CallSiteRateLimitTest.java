@@ -0,0 +1,91 @@
+/**
+ * CallSiteRateLimitTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Call site limits are looked up by file and line whatever the type of file name, and limits created
+ * for call sites from default limit do not grow without bound. Already encoded requests go through
+ * same limits and level thresholds
+ */
+public class CallSiteRateLimitTest {
+
+    public static void main(String[] args) throws Exception {
+        final Residue r = new Residue();
+        r.setCallSiteRateLimit("Worker.java:42", 1.0, 1);
+
+        final Residue.Event event = new Residue.Event();
+        final StringBuilder filename = new StringBuilder();
+        for (int i = 0; i < 3; ++i) {
+            filename.setLength(0);
+            filename.append("Worker.java");
+            r.log(event.reset().setLoggerId("default").setLevel(Residue.LoggingLevels.INFO).setMessage("m")
+                    .setSourceFilename(filename).setSourceLineNumber(42));
+        }
+        Check.that(suppressed(r) == 2, "configured limit applies to file name given as StringBuilder");
+
+        r.log(event.reset().setLoggerId("default").setLevel(Residue.LoggingLevels.INFO).setMessage("m")
+                .setSourceFilename("Worker.java").setSourceLineNumber(43));
+        Check.that(suppressed(r) == 2, "other line is not limited without default limit");
+
+        r.setCallSiteRateLimit(1000.0, 1);
+        for (int line = 0; line < 20000; ++line) {
+            r.log(event.reset().setLoggerId("default").setLevel(Residue.LoggingLevels.INFO).setMessage("m")
+                    .setSourceFilename("Generated.java").setSourceLineNumber(line));
+        }
+        Check.that(limits(r).size() <= 1024, "call site limits are bounded (" + limits(r).size() + ")");
+
+        final long before = suppressed(r);
+        for (int i = 0; i < 3; ++i) {
+            r.log(event.reset().setLoggerId("default").setLevel(Residue.LoggingLevels.INFO).setMessage("m")
+                    .setSourceFilename("Worker.java").setSourceLineNumber(42));
+        }
+        Check.that(suppressed(r) - before == 3, "configured limit is kept when others are evicted");
+
+        final byte[] json = "{\"logger\":\"default\",\"msg\":\"m\",\"file\":\"Worker.java\",\"line\":42,\"level\":4}"
+                .getBytes(StandardCharsets.UTF_8);
+        final long beforeJson = suppressed(r);
+        r.log("default", Residue.LoggingLevels.INFO, 0, "Worker.java", 42, json, 0, json.length);
+        Check.that(suppressed(r) - beforeJson == 1, "call site limit applies to already encoded requests");
+
+        r.setMinimumLevel(Residue.LoggingLevels.WARNING);
+        final long enqueued = r.getMetrics().snapshot().getEnqueuedCount();
+        r.log("default", Residue.LoggingLevels.INFO, 0, "Other.java", 1, json, 0, json.length);
+        Check.that(r.getMetrics().snapshot().getEnqueuedCount() == enqueued,
+                "level threshold applies to already encoded requests");
+
+        r.close();
+        System.exit(0);
+    }
+
+    private static long suppressed(Residue r) {
+        return r.getMetrics().snapshot().getSuppressedCount();
+    }
+
+    private static Map<?, ?> limits(Residue r) throws Exception {
+        final Field f = Residue.class.getDeclaredField("callSiteRateLimits");
+        f.setAccessible(true);
+        return (Map<?, ?>) f.get(r);
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Check.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+/**
+ * Assertions for test programs, failed check exits with status 1 so <code>run-tests.sh</code> fails
+ */
+class Check {
+
+    interface Condition {
+        boolean met() throws Exception;
+    }
+
+    static void that(boolean condition, String description) {
+        if (!condition) {
+            System.out.println("FAILED: " + description);
+            System.exit(1);
+        }
+        System.out.println("ok: " + description);
+    }
+
+    /**
+     * Waits up to <code>timeoutMillis</code> for condition to be met
+     */
+    static void eventually(Condition condition, long timeoutMillis, String description) throws Exception {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.met()) {
+            if (System.currentTimeMillis() >= deadline) {
+                that(false, description);
+            }
+            Thread.sleep(20);
+        }
+        that(true, description);
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * CodecTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LZ4 codec round trip (directly and through stand-in server), codec flag validation and disabling failed
+ * codec for the session
+ */
+public class CodecTest {
+
+    private static final int LZ4 = Residue.Lz4Codec.DEFAULT_SERVER_FLAG;
+
+    /**
+     * LZ4 block decoder with size prefix, i.e, what server does with codec payload
+     */
+    static class Lz4Decoder implements StandInServer.Decoder {
+        @Override
+        public byte[] decode(byte[] in) throws IOException {
+            final int size = (in[0] & 0xff) | (in[1] & 0xff) << 8 | (in[2] & 0xff) << 16 | (in[3] & 0xff) << 24;
+            final byte[] out = new byte[size];
+            int i = 4;
+            int o = 0;
+            while (i < in.length) {
+                final int token = in[i++] & 0xff;
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = in[i++] & 0xff;
+                        literals += b;
+                    } while (b == 255);
+                }
+                System.arraycopy(in, i, out, o, literals);
+                i += literals;
+                o += literals;
+                if (i == in.length) {
+                    break;
+                }
+                final int offset = (in[i++] & 0xff) | (in[i++] & 0xff) << 8;
+                int length = token & 15;
+                if (length == 15) {
+                    int b;
+                    do {
+                        b = in[i++] & 0xff;
+                        length += b;
+                    } while (b == 255);
+                }
+                length += 4;
+                if (offset == 0 || offset > o) {
+                    throw new IOException("Invalid match offset " + offset);
+                }
+                for (int k = 0; k < length; ++k, ++o) {
+                    out[o] = out[o - offset];
+                }
+            }
+            if (o != size) {
+                throw new IOException("Decoded " + o + " bytes, expected " + size);
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Codec that always fails and counts how many times it was used
+     */
+    static class FailingCodec implements Residue.Codec {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public int getServerFlag() {
+            return LZ4;
+        }
+
+        @Override
+        public byte[] compress(byte[] input, int offset, int len) throws IOException {
+            calls.incrementAndGet();
+            throw new IOException("broken codec");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        roundTrip();
+        flags();
+        overServer();
+        failedCodec();
+        System.exit(0);
+    }
+
+    private static void roundTrip() throws Exception {
+        final Residue.Lz4Codec codec = new Residue.Lz4Codec();
+        final Lz4Decoder decoder = new Lz4Decoder();
+        final Random random = new Random(7);
+        final StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 2000; ++i) {
+            logs.append("{\"datetime\":").append(1500000000000L + i * 13)
+                    .append(",\"logger\":\"default\",\"msg\":\"request ").append(random.nextInt(100000))
+                    .append(" served\",\"file\":\"Server.java\",\"line\":").append(random.nextInt(900))
+                    .append(",\"level\":4}");
+        }
+        final byte[] noise = new byte[100000];
+        random.nextBytes(noise);
+        final byte[] repeated = new byte[300000];
+        Arrays.fill(repeated, (byte) 'a');
+        final byte[][] inputs = {
+                new byte[0], "a".getBytes(StandardCharsets.UTF_8), "abcdabcdabcd".getBytes(StandardCharsets.UTF_8),
+                "abcdabcdabcdabcdabcdabcdabcdabcd".getBytes(StandardCharsets.UTF_8),
+                logs.toString().getBytes(StandardCharsets.UTF_8), noise, repeated
+        };
+        for (byte[] input : inputs) {
+            final byte[] compressed = codec.compress(input, 0, input.length);
+            Check.that(Arrays.equals(decoder.decode(compressed), input), "round trip of " + input.length + " bytes");
+        }
+        final byte[] log = inputs[4];
+        Check.that(codec.compress(log, 0, log.length).length < log.length / 3, "log requests are compressed");
+        final byte[] middle = codec.compress(log, 100, 5000);
+        Check.that(Arrays.equals(decoder.decode(middle), Arrays.copyOfRange(log, 100, 5100)), "round trip of input range");
+    }
+
+    private static void flags() {
+        final Residue r = new Residue();
+        final int[] invalid = {0, 1, 8, 16, 256, 512 | 1024};
+        for (final int flag : invalid) {
+            boolean rejected = false;
+            try {
+                r.setCodec(new Residue.Lz4Codec(flag));
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            Check.that(rejected, "codec flag " + flag + " is rejected");
+        }
+        r.setCodec(new Residue.Lz4Codec(1024));
+        r.setCodec(null);
+    }
+
+    private static void overServer() throws Exception {
+        final StandInServer server = new StandInServer(3600,
+                StandInServer.FLAG_ALLOW_BULK | StandInServer.FLAG_COMPRESSION | LZ4, new Lz4Decoder());
+        final Residue r = newInstance(server);
+        r.setCodec(new Residue.Lz4Codec());
+        Check.that(r.open(), "connects to server with LZ4 support");
+        final Residue.Logger logger = r.getLogger("default");
+        for (int i = 0; i < 500; ++i) {
+            logger.info("lz4 message " + i);
+        }
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return new HashSet<>(server.getMessages()).size() == 500;
+            }
+        }, 20000, "all messages decoded by server");
+        Check.that(server.codecFrames.get() > 0 && server.badFrames.get() == 0, "log requests are LZ4 compressed");
+        r.close();
+        server.close();
+    }
+
+    private static void failedCodec() throws Exception {
+        // server decoder is zlib only
+        final StandInServer server = new StandInServer(3600,
+                StandInServer.FLAG_ALLOW_BULK | StandInServer.FLAG_COMPRESSION | LZ4, null);
+        final Residue r = newInstance(server);
+        final FailingCodec codec = new FailingCodec();
+        r.setCodec(codec);
+        Check.that(r.open(), "connects with failing codec");
+        final Residue.Logger logger = r.getLogger("default");
+        for (int i = 0; i < 100; ++i) {
+            logger.info("zlib message " + i);
+        }
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return new HashSet<>(server.getMessages()).size() == 100;
+            }
+        }, 20000, "messages are sent using zlib after codec failed");
+        Check.that(codec.calls.get() == 1, "failed codec is not used again in the session");
+        Check.that(server.badFrames.get() == 0, "no undecodable requests");
+        r.close();
+        server.close();
+    }
+
+    private static Residue newInstance(StandInServer server) {
+        final Residue r = new Residue();
+        r.setRsaKeySize(1024);
+        r.setHost("127.0.0.1", server.getPort());
+        return r;
+    }
+}
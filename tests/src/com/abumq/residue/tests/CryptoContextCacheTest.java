@@ -0,0 +1,70 @@
+/**
+ * CryptoContextCacheTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Crypto contexts are shared by all the instances; session keys of many instances used concurrently
+ * keep their context instead of cache emptying itself and rebuilding them
+ */
+public class CryptoContextCacheTest {
+
+    private static final int KEYS = 64; // e.g, current and pending session keys of 32 instances
+
+    public static void main(String[] args) throws Exception {
+        final Method forKey = Class.forName("com.abumq.residue.Residue$CryptoContext")
+                .getDeclaredMethod("forKey", String.class);
+        forKey.setAccessible(true);
+
+        final ConcurrentHashMap<String, Object> first = new ConcurrentHashMap<>();
+        final AtomicBoolean rebuilt = new AtomicBoolean(false);
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 20000; ++i) {
+                            final String key = String.format("%032X", (i + offset) % KEYS);
+                            final Object context = forKey.invoke(null, key);
+                            final Object existing = first.putIfAbsent(key, context);
+                            if (existing != null && existing != context) {
+                                rebuilt.set(true);
+                            }
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        rebuilt.set(true);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Check.that(first.size() == KEYS, "context is created for each key");
+        Check.that(!rebuilt.get(), "contexts are reused, not rebuilt");
+        System.exit(0);
+    }
+}
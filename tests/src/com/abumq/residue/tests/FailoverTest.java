@@ -0,0 +1,82 @@
+/**
+ * FailoverTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+/**
+ * Fails over to next server when current one goes down, and picks it again (resuming its session)
+ * once it is back and its backoff has passed. Logging unix socket of a server is only used for that
+ * server. Requires JDK 16+
+ */
+public class FailoverTest {
+
+    public static void main(String[] args) throws Exception {
+        final StandInServer first = new StandInServer(3600, StandInServer.FLAG_ALLOW_BULK, null);
+        final StandInServer second = new StandInServer(3600, StandInServer.FLAG_ALLOW_BULK, null);
+        final Residue r = new Residue();
+        r.setRsaKeySize(1024);
+        r.addEndpoint("127.0.0.1:" + first.getPort(), 1);
+        r.addEndpoint("127.0.0.1:" + second.getPort(), "unix:" + second.listenUnixLogging(), 1);
+        Check.that(r.open(), "connects");
+        Check.that(first.connects.get() == 1 && second.connects.get() == 0, "first server is picked first");
+
+        final Residue.Logger logger = r.getLogger("default");
+        logger.info("before failover");
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return first.getMessages().contains("before failover");
+            }
+        }, 10000, "logs are sent to first server");
+
+        first.stop();
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() throws Exception {
+                logger.info("after failover");
+                Thread.sleep(100);
+                return second.getMessages().contains("after failover");
+            }
+        }, 30000, "fails over to second server");
+        Check.that(!first.getMessages().contains("after failover"), "first server is down");
+        Check.that(second.unixLoggingConnects.get() >= 1, "second server is logged to using its unix socket");
+
+        first.restart();
+        final int firstTouches = first.touches.get();
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() throws Exception {
+                // each reconnect picks next server by weighted round robin
+                second.dropLoggingConnections();
+                logger.info("readmitted");
+                Thread.sleep(500);
+                return first.getMessages().contains("readmitted");
+            }
+        }, 60000, "first server is picked again once back");
+        Check.that(first.connects.get() == 1 && first.touches.get() > firstTouches,
+                "session with first server is resumed instead of new handshake");
+        Check.that(first.unixLoggingConnects.get() == 0, "first server is logged to using TCP");
+
+        r.close();
+        first.close();
+        second.close();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * IncrementalBulkTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+import java.util.HashSet;
+
+/**
+ * Incrementally built bulks (compressed and plain) from concurrent logging threads are decoded by server,
+ * before and after reconnecting
+ */
+public class IncrementalBulkTest {
+
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 500;
+
+    public static void main(String[] args) throws Exception {
+        run(StandInServer.FLAG_ALLOW_BULK | StandInServer.FLAG_COMPRESSION, 1);
+        run(StandInServer.FLAG_ALLOW_BULK | StandInServer.FLAG_COMPRESSION, 40);
+        run(StandInServer.FLAG_ALLOW_BULK, 40);
+        System.exit(0);
+    }
+
+    private static void run(final int flags, final int dispatchDelay) throws Exception {
+        final String name = "flags " + flags + ", dispatch delay " + dispatchDelay;
+        final StandInServer server = new StandInServer(3600, flags, null);
+        final Residue r = new Residue();
+        r.setRsaKeySize(1024);
+        r.setHost("127.0.0.1", server.getPort());
+        r.setIncrementalBulk(true);
+        r.setDispatchDelay(dispatchDelay);
+        Check.that(r.open(), "connects (" + name + ")");
+
+        final Residue.Logger logger = r.getLogger("default");
+        log(logger, "before");
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return received(server, "before") == THREADS * PER_THREAD;
+            }
+        }, 30000, "all messages are delivered (" + name + ")");
+
+        server.dropLoggingConnections();
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                logger.info("probe");
+                return server.getMessages().contains("probe");
+            }
+        }, 30000, "reconnects (" + name + ")");
+        log(logger, "after");
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return received(server, "after") == THREADS * PER_THREAD;
+            }
+        }, 30000, "all messages are delivered after reconnecting (" + name + ")");
+        Check.that(server.badFrames.get() == 0, "all bulks are decoded (" + name + ")");
+        r.close();
+        server.close();
+    }
+
+    private static void log(final Residue.Logger logger, final String prefix) throws InterruptedException {
+        final Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; ++t) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < PER_THREAD; ++i) {
+                        logger.info(prefix + " " + id + " " + i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    private static int received(StandInServer server, String prefix) {
+        final HashSet<String> received = new HashSet<>(server.getMessages());
+        int count = 0;
+        for (int t = 0; t < THREADS; ++t) {
+            for (int i = 0; i < PER_THREAD; ++i) {
+                if (received.contains(prefix + " " + t + " " + i)) {
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * JournalReplayTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records replayed from journal are not lost when connection is lost while they are being sent, i.e,
+ * journal is only checkpointed once server acknowledges them
+ */
+public class JournalReplayTest {
+
+    private static final int TOTAL = 300;
+
+    public static void main(String[] args) throws Exception {
+        final StandInServer server = new StandInServer(3600, StandInServer.FLAG_ALLOW_BULK, null);
+        final File dir = Files.createTempDirectory("residue-journal").toFile();
+
+        final Residue r = new Residue();
+        r.setRsaKeySize(1024);
+        r.setHost("127.0.0.1", server.getPort());
+        r.setJournal(dir.getAbsolutePath(), 64 * 1024, 16L * 1024 * 1024);
+        r.setJournalSpillThreshold(0); // everything goes through journal
+        Check.that(r.open(), "connects");
+
+        final Residue.Logger logger = r.getLogger("default");
+        for (int i = 0; i < TOTAL; ++i) {
+            logger.info("message " + i);
+            if (i % 50 == 25) {
+                server.dropLoggingConnections();
+            }
+        }
+        server.dropLoggingConnections();
+
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return missing(server).isEmpty();
+            }
+        }, 60000, "all the journaled messages are delivered");
+        Check.that(server.connects.get() >= 2, "instance reconnected while replaying");
+
+        r.close();
+        server.close();
+        System.exit(0);
+    }
+
+    private static Set<String> missing(StandInServer server) {
+        final Set<String> received = new HashSet<>(server.getMessages());
+        final Set<String> missing = new HashSet<>();
+        for (int i = 0; i < TOTAL; ++i) {
+            if (!received.contains("message " + i)) {
+                missing.add("message " + i);
+            }
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * JournalSwitchTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Replacing journal moves records previous journal has not delivered to the new one, and previous
+ * journal is closed
+ */
+public class JournalSwitchTest {
+
+    private static final int TOTAL = 200;
+
+    public static void main(String[] args) throws Exception {
+        final StandInServer server = new StandInServer(3600, StandInServer.FLAG_ALLOW_BULK, null);
+        final File first = Files.createTempDirectory("residue-journal").toFile();
+        final File second = Files.createTempDirectory("residue-journal").toFile();
+
+        final Residue r = new Residue();
+        r.setRsaKeySize(1024);
+        r.setHost("127.0.0.1", server.getPort());
+        r.setJournal(first.getAbsolutePath(), 64 * 1024, 16L * 1024 * 1024);
+        r.setJournalSpillThreshold(0); // everything goes through journal
+        Check.that(r.open(), "connects");
+
+        // server is down, everything stays in first journal
+        server.stop();
+        final Residue.Logger logger = r.getLogger("default");
+        for (int i = 0; i < TOTAL; ++i) {
+            logger.info("message " + i);
+        }
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return r.getMetrics().snapshot().getSpilledCount() >= TOTAL;
+            }
+        }, 10000, "messages are spilled to first journal");
+
+        r.setJournal(second.getAbsolutePath(), 64 * 1024, 16L * 1024 * 1024);
+        server.restart();
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return missing(server).isEmpty();
+            }
+        }, 60000, "messages of replaced journal are delivered");
+
+        // reopening first journal has nothing left to replay
+        r.setJournal(first.getAbsolutePath(), 64 * 1024, 16L * 1024 * 1024);
+        final int received = server.getMessages().size();
+        logger.info("after reopen");
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return server.getMessages().contains("after reopen");
+            }
+        }, 30000, "logs are sent after reopening first journal");
+        Check.that(server.getMessages().size() == received + 1, "moved messages are not replayed again");
+
+        r.close();
+        server.close();
+        System.exit(0);
+    }
+
+    private static Set<String> missing(StandInServer server) {
+        final Set<String> received = new HashSet<>(server.getMessages());
+        final Set<String> missing = new HashSet<>();
+        for (int i = 0; i < TOTAL; ++i) {
+            if (!received.contains("message " + i)) {
+                missing.add("message " + i);
+            }
+        }
+        return missing;
+    }
+}
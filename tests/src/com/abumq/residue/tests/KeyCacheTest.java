@@ -0,0 +1,81 @@
+/**
+ * KeyCacheTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import java.lang.reflect.Method;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parsed keys are shared by all the instances; keys of many instances used concurrently stay parsed
+ * instead of cache emptying itself and parsing them again
+ */
+public class KeyCacheTest {
+
+    private static final int KEYS = 32; // e.g, server keys of 32 instances
+
+    public static void main(String[] args) throws Exception {
+        final Method fromPem = Class.forName("com.abumq.residue.Residue$KeyUtils")
+                .getDeclaredMethod("getPublicKeyFromPEM", String.class);
+        fromPem.setAccessible(true);
+
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        final String[] pems = new String[KEYS];
+        for (int i = 0; i < KEYS; ++i) {
+            pems[i] = "-----BEGIN PUBLIC KEY-----\n"
+                    + Base64.getEncoder().encodeToString(generator.generateKeyPair().getPublic().getEncoded())
+                    + "\n-----END PUBLIC KEY-----";
+        }
+
+        final ConcurrentHashMap<String, Object> first = new ConcurrentHashMap<>();
+        final AtomicBoolean reparsed = new AtomicBoolean(false);
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 2000; ++i) {
+                            final String pem = pems[(i + offset) % KEYS];
+                            final Object key = fromPem.invoke(null, pem);
+                            final Object existing = first.putIfAbsent(pem, key);
+                            if (existing != null && existing != key) {
+                                reparsed.set(true);
+                            }
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        reparsed.set(true);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Check.that(first.size() == KEYS, "each key is parsed");
+        Check.that(!reparsed.get(), "parsed keys are reused, not parsed again");
+        System.exit(0);
+    }
+}
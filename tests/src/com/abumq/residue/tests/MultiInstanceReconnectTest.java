@@ -0,0 +1,75 @@
+/**
+ * MultiInstanceReconnectTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+/**
+ * Instances created with <code>new Residue()</code> reconnect themselves (not default instance)
+ * after losing connection
+ */
+public class MultiInstanceReconnectTest {
+
+    public static void main(String[] args) throws Exception {
+        final StandInServer server = new StandInServer(3600, StandInServer.FLAG_ALLOW_BULK, null);
+        final StandInServer other = new StandInServer(3600, StandInServer.FLAG_ALLOW_BULK, null);
+
+        final Residue first = newInstance(server);
+        final Residue second = newInstance(other);
+        Check.that(first.open() && second.open(), "both instances connect");
+
+        first.getLogger("default").info("first before");
+        second.getLogger("default").info("second before");
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return server.getMessages().contains("first before") && other.getMessages().contains("second before");
+            }
+        }, 10000, "logs are sent before disconnect");
+
+        server.dropLoggingConnections();
+        final Residue.Logger logger = first.getLogger("default");
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                logger.info("first after");
+                return server.getMessages().contains("first after");
+            }
+        }, 20000, "instance reconnects itself and sends logs after disconnect");
+
+        Check.that(first.getMetrics().snapshot().getReconnectCount() >= 1, "reconnect is counted on instance");
+        Check.that(server.connects.get() >= 2, "instance negotiated new connection with its own server");
+        Check.that(other.connects.get() == 1, "other instance is not reconnected");
+        Check.that(Residue.getInstance().getMetrics().snapshot().getFailedConnectCount() == 0
+                && !Boolean.TRUE.equals(Residue.getInstance().isConnected()), "default instance is not touched");
+
+        first.close();
+        second.close();
+        server.close();
+        other.close();
+        System.exit(0);
+    }
+
+    private static Residue newInstance(StandInServer server) {
+        Residue r = new Residue();
+        r.setRsaKeySize(1024);
+        r.setHost("127.0.0.1", server.getPort());
+        return r;
+    }
+}
@@ -0,0 +1,425 @@
+/**
+ * StandInServer.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Minimal residue server for tests: key exchange, acknowledgement, touch and log requests (plain,
+ * zlib or codec compressed) on loopback. Listens on two consecutive ports (connection and logging) and
+ * optionally on unix domain socket for logging (JDK 16+)
+ */
+class StandInServer {
+    static final String DELIMITER = "\r\n\r\n";
+
+    static final int FLAG_ALLOW_BULK = 16;
+    static final int FLAG_COMPRESSION = 256;
+
+    /**
+     * Decompresses payload of codec that server advertises
+     */
+    interface Decoder {
+        byte[] decode(byte[] input) throws IOException;
+    }
+
+    enum TouchMode {
+        ACCEPT,
+        IGNORE_FIRST, // never responds to first touch, accepts the rest
+        REJECT
+    }
+
+    private ServerSocket connectionServer;
+    private ServerSocket loggingServer;
+    private ServerSocketChannel unixLoggingServer;
+    private final int age;
+    private final int flags;
+    private final Decoder decoder;
+    private volatile TouchMode touchMode = TouchMode.ACCEPT;
+    private volatile boolean loggingStalled;
+
+    private final ConcurrentHashMap<String, byte[]> keys = new ConcurrentHashMap<>();
+    private final List<Closeable> loggingConnections = new CopyOnWriteArrayList<>();
+    private final List<Closeable> connections = new CopyOnWriteArrayList<>();
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    final AtomicInteger connects = new AtomicInteger();
+    final AtomicInteger touches = new AtomicInteger();
+    final AtomicInteger badFrames = new AtomicInteger();
+    final AtomicInteger codecFrames = new AtomicInteger();
+    final AtomicInteger unixLoggingConnects = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+    private volatile boolean closed;
+
+    /**
+     * @param decoder Codec frames decoder, used for all compressed frames when set (i.e, server advertised its flag)
+     */
+    StandInServer(int age, int flags, Decoder decoder) throws IOException {
+        this.age = age;
+        this.flags = flags;
+        this.decoder = decoder;
+        ServerSocket c = null;
+        ServerSocket l = null;
+        for (int port = 17000 + random.nextInt(20000); l == null; port += 2) {
+            try {
+                c = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+                l = new ServerSocket(port + 1, 50, InetAddress.getLoopbackAddress());
+            } catch (IOException e) {
+                if (c != null) {
+                    c.close();
+                }
+                c = null;
+            }
+        }
+        connectionServer = c;
+        loggingServer = l;
+        accept(connectionServer, false);
+        accept(loggingServer, true);
+    }
+
+    int getPort() {
+        return connectionServer.getLocalPort();
+    }
+
+    /**
+     * Also accepts logging connections on unix domain socket
+     *
+     * @return Socket path to use as client's logging unix socket
+     */
+    String listenUnixLogging() throws IOException {
+        final Path dir = Files.createTempDirectory("residue-test");
+        final Path path = dir.resolve("logging.sock");
+        dir.toFile().deleteOnExit();
+        path.toFile().deleteOnExit();
+        unixLoggingServer = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        unixLoggingServer.bind(UnixDomainSocketAddress.of(path));
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!closed) {
+                    try {
+                        final SocketChannel channel = unixLoggingServer.accept();
+                        unixLoggingConnects.incrementAndGet();
+                        loggingConnections.add(channel);
+                        handleInBackground(Channels.newInputStream(channel), Channels.newOutputStream(channel),
+                                channel, true);
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+        return path.toString();
+    }
+
+    void setTouchMode(TouchMode touchMode) {
+        this.touchMode = touchMode;
+    }
+
+    /**
+     * Stops (or resumes) reading from logging connections, i.e, clients' writes block once socket buffers are full
+     */
+    void setLoggingStalled(boolean loggingStalled) {
+        this.loggingStalled = loggingStalled;
+    }
+
+    /**
+     * Messages of all the log requests received so far
+     */
+    List<String> getMessages() {
+        return new ArrayList<>(messages);
+    }
+
+    /**
+     * Closes logging connections, i.e, clients lose connection
+     */
+    void dropLoggingConnections() throws IOException {
+        for (Closeable c : loggingConnections) {
+            c.close();
+        }
+        loggingConnections.clear();
+    }
+
+    /**
+     * Closes listening sockets and all the connections, i.e, server is down until {@link #restart()}
+     */
+    void stop() throws IOException {
+        connectionServer.close();
+        loggingServer.close();
+        dropLoggingConnections();
+        for (Closeable c : connections) {
+            c.close();
+        }
+        connections.clear();
+    }
+
+    /**
+     * Listens again on same ports after {@link #stop()}, clients negotiated before are still known
+     */
+    void restart() throws IOException {
+        connectionServer = new ServerSocket(connectionServer.getLocalPort(), 50, InetAddress.getLoopbackAddress());
+        loggingServer = new ServerSocket(loggingServer.getLocalPort(), 50, InetAddress.getLoopbackAddress());
+        accept(connectionServer, false);
+        accept(loggingServer, true);
+    }
+
+    void close() throws IOException {
+        closed = true;
+        dropLoggingConnections();
+        connectionServer.close();
+        loggingServer.close();
+        if (unixLoggingServer != null) {
+            unixLoggingServer.close();
+        }
+    }
+
+    private void accept(final ServerSocket server, final boolean logging) {
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!closed && !server.isClosed()) {
+                    try {
+                        final Socket s = server.accept();
+                        connections.add(s);
+                        if (logging) {
+                            loggingConnections.add(s);
+                        }
+                        handleInBackground(s.getInputStream(), s.getOutputStream(), s, logging);
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void handleInBackground(final InputStream in, final OutputStream out, final Closeable connection,
+                                    final boolean logging) {
+        Thread h = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                handle(in, out, connection, logging);
+            }
+        });
+        h.setDaemon(true);
+        h.start();
+    }
+
+    private void handle(InputStream in, OutputStream out, Closeable connection, boolean logging) {
+        try {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            byte[] b = new byte[65536];
+            int n;
+            while (true) {
+                while (logging && loggingStalled && loggingConnections.contains(connection)) {
+                    Thread.sleep(20);
+                }
+                if ((n = in.read(b)) <= 0) {
+                    break;
+                }
+                buf.write(b, 0, n);
+                String data = new String(buf.toByteArray(), StandardCharsets.UTF_8);
+                int end;
+                while ((end = data.indexOf(DELIMITER)) >= 0) {
+                    String frame = data.substring(0, end);
+                    data = data.substring(end + DELIMITER.length());
+                    String response = logging ? handleLog(frame) : handleConnection(frame);
+                    if (response != null) {
+                        out.write(response.getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                    }
+                }
+                buf.reset();
+                buf.write(data.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (Exception e) {
+            // connection closed
+        }
+    }
+
+    private String handleConnection(String frame) throws Exception {
+        if (frame.startsWith("{")) {
+            JsonObject req = JsonParser.parseString(frame).getAsJsonObject();
+            String pem = new String(Base64.getMimeDecoder().decode(req.get("rsa_public_key").getAsString()), StandardCharsets.UTF_8);
+            StringBuilder der = new StringBuilder();
+            for (String line : pem.split("\n")) {
+                if (!line.startsWith("-----")) {
+                    der.append(line.trim());
+                }
+            }
+            PublicKey publicKey = KeyFactory.getInstance("RSA")
+                    .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(der.toString())));
+            String clientId = "client" + connects.incrementAndGet();
+            byte[] key = new byte[16];
+            random.nextBytes(key);
+            keys.put(clientId, key);
+            JsonObject res = new JsonObject();
+            res.addProperty("key", hex(key));
+            res.addProperty("client_id", clientId);
+            Cipher rsa = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+            rsa.init(Cipher.ENCRYPT_MODE, publicKey);
+            return Base64.getEncoder().encodeToString(rsa.doFinal(res.toString().getBytes(StandardCharsets.UTF_8))) + DELIMITER;
+        }
+        String[] parts = frame.split(":", 3);
+        byte[] key = keys.get(parts[1]);
+        JsonObject req = JsonParser.parseString(new String(decrypt(parts, key), StandardCharsets.UTF_8)).getAsJsonObject();
+        int type = req.get("type").getAsInt();
+        if (type == 3) {
+            int touch = touches.incrementAndGet();
+            TouchMode mode = touchMode;
+            if (mode == TouchMode.REJECT) {
+                return "{\"status\":1,\"error_text\":\"Client not found\"}" + DELIMITER;
+            }
+            if (mode == TouchMode.IGNORE_FIRST && touch == 1) {
+                return null;
+            }
+        }
+        JsonObject res = new JsonObject();
+        res.addProperty("status", 0);
+        res.addProperty("age", age);
+        res.addProperty("logging_port", loggingServer.getLocalPort());
+        res.addProperty("max_bulk_size", 50);
+        res.addProperty("flags", flags);
+        JsonObject serverInfo = new JsonObject();
+        serverInfo.addProperty("version", "2.0.0");
+        res.add("server_info", serverInfo);
+        res.addProperty("date_created", System.currentTimeMillis() / 1000);
+        return encrypt(res.toString(), key);
+    }
+
+    private String handleLog(String frame) throws Exception {
+        String[] parts = frame.split(":", 3);
+        byte[] key = keys.get(parts[1]);
+        if (key == null) {
+            badFrames.incrementAndGet();
+            return null;
+        }
+        byte[] payload = decrypt(parts, key);
+        String json;
+        if (payload.length > 0 && (payload[0] == '{' || payload[0] == '[')) {
+            json = new String(payload, StandardCharsets.UTF_8);
+        } else {
+            byte[] compressed = Base64.getMimeDecoder().decode(payload);
+            try {
+                if (decoder != null) {
+                    json = new String(decoder.decode(compressed), StandardCharsets.UTF_8);
+                    codecFrames.incrementAndGet();
+                } else {
+                    json = new String(inflate(compressed), StandardCharsets.UTF_8);
+                }
+            } catch (Exception e) {
+                badFrames.incrementAndGet();
+                return encrypt("{\"status\":1}", key);
+            }
+        }
+        JsonElement parsed = JsonParser.parseString(json);
+        JsonArray items = parsed.isJsonArray() ? parsed.getAsJsonArray() : new JsonArray();
+        if (!parsed.isJsonArray()) {
+            items.add(parsed);
+        }
+        for (JsonElement item : items) {
+            messages.add(item.getAsJsonObject().get("msg").getAsString());
+        }
+        return encrypt("{\"status\":0}", key);
+    }
+
+    private static byte[] inflate(byte[] input) throws Exception {
+        Inflater inflater = new Inflater();
+        inflater.setInput(input);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] b = new byte[4096];
+        while (!inflater.finished()) {
+            int n = inflater.inflate(b);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new IOException("Truncated zlib stream");
+            }
+            out.write(b, 0, n);
+        }
+        inflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] decrypt(String[] parts, byte[] key) throws Exception {
+        Cipher aes = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        aes.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(unhex(parts[0])));
+        return aes.doFinal(Base64.getMimeDecoder().decode(parts[2]));
+    }
+
+    private String encrypt(String json, byte[] key) throws Exception {
+        byte[] iv = new byte[16];
+        random.nextBytes(iv);
+        Cipher aes = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        return hex(iv).toUpperCase() + ":"
+                + Base64.getEncoder().encodeToString(aes.doFinal(json.getBytes(StandardCharsets.UTF_8))) + DELIMITER;
+    }
+
+    private static String hex(byte[] b) {
+        StringBuilder sb = new StringBuilder();
+        for (byte x : b) {
+            sb.append(String.format("%02X", x));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] unhex(String s) {
+        byte[] b = new byte[s.length() / 2];
+        for (int i = 0; i < b.length; ++i) {
+            b[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2), 16);
+        }
+        return b;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * TouchTimeoutTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+/**
+ * Touch that times out does not make next touches time out too, i.e, its pending read does not take
+ * response of retried touch
+ */
+public class TouchTimeoutTest {
+
+    public static void main(String[] args) throws Exception {
+        // client is touched 60 seconds before expiry, i.e, 2 seconds after connecting
+        final StandInServer server = new StandInServer(62, StandInServer.FLAG_ALLOW_BULK, null);
+        server.setTouchMode(StandInServer.TouchMode.IGNORE_FIRST);
+
+        final Residue r = new Residue();
+        r.setRsaKeySize(1024);
+        r.setHost("127.0.0.1", server.getPort());
+        Check.that(r.open(), "connects");
+
+        final Residue.TouchStats stats = r.getTouchStats();
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return stats.getFailedCount() >= 1;
+            }
+        }, 20000, "first touch times out");
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return stats.getCount() >= 1;
+            }
+        }, 20000, "retried touch renews client");
+        Check.that(stats.getFailedCount() == 1, "only first touch failed");
+        Check.that(server.connects.get() == 1, "client is renewed without new session");
+
+        r.getLogger("default").info("after touch");
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return server.getMessages().contains("after touch");
+            }
+        }, 10000, "logs are sent after touch");
+
+        r.close();
+        server.close();
+        System.exit(0);
+    }
+}
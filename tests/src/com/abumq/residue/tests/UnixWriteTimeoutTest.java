@@ -0,0 +1,76 @@
+/**
+ * UnixWriteTimeoutTest.java
+ *
+ * Copyright (C) 2017-present @abumq (Majid Q.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.abumq.residue.tests;
+
+import com.abumq.residue.Residue;
+
+/**
+ * Write on unix domain socket to server that stopped reading times out (both fire-and-forget and
+ * requests waiting for response), is counted as dropped and connection is re-established instead of
+ * blocking dispatcher forever. Requires JDK 16+
+ */
+public class UnixWriteTimeoutTest {
+
+    public static void main(String[] args) throws Exception {
+        check(true);
+        check(false);
+        System.exit(0);
+    }
+
+    private static void check(boolean fireAndForget) throws Exception {
+        final StandInServer server = new StandInServer(3600, StandInServer.FLAG_ALLOW_BULK, null);
+        final Residue r = new Residue();
+        r.setRsaKeySize(1024);
+        r.setHost("127.0.0.1", server.getPort());
+        r.setLoggingUnixSocket(server.listenUnixLogging());
+        r.setFireAndForget(fireAndForget);
+        Check.that(r.open(), "connects");
+
+        server.setLoggingStalled(true);
+        final StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 4096; ++i) {
+            large.append("0123456789abcdef");
+        }
+        final Residue.Logger logger = r.getLogger("default");
+        final long start = System.currentTimeMillis();
+        // fills socket buffers so that dispatcher blocks on write
+        for (int i = 0; i < 400; ++i) {
+            logger.info(large.toString());
+        }
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                return r.getMetrics().snapshot().getDroppedCount() > 0;
+            }
+        }, 30000, "blocked write times out and is counted as dropped (fire-and-forget: " + fireAndForget + ")");
+        Check.that(System.currentTimeMillis() - start >= 9000, "write waited for timeout");
+
+        server.setLoggingStalled(false);
+        Check.eventually(new Check.Condition() {
+            @Override
+            public boolean met() {
+                logger.info("after timeout");
+                return server.getMessages().contains("after timeout");
+            }
+        }, 30000, "reconnects and sends logs after timeout (fire-and-forget: " + fireAndForget + ")");
+
+        r.close();
+        server.close();
+    }
+}